@@ -0,0 +1,36 @@
+package com.bank.app.cards_service.benchmark;
+
+import com.bank.app.cards_service.entity.Card;
+import com.bank.core.entity.CardStatus;
+import com.bank.core.entity.CardType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sample data shared by the benchmarks.
+ */
+final class BenchmarkCards {
+
+    private BenchmarkCards() {
+    }
+
+    /**
+     * A fully populated credit card.
+     * @return A new card.
+     */
+    static Card card() {
+        return Card.builder()
+                .id(1234567L)
+                .cardNumber("4000001234567899")
+                .cardHolderName("Jane Doe")
+                .cardType(CardType.CREDIT)
+                .creditLimit(new BigDecimal("25000"))
+                .availableLimit(new BigDecimal("18250.75"))
+                .expiryDate(LocalDate.of(2035, 10, 17))
+                .userId(42L)
+                .status(CardStatus.ACTIVE)
+                .version(3L)
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.bank.app.cards_service.benchmark;
+
+import com.bank.app.cards_service.kafka.CardEventSerializer;
+import com.bank.app.cards_service.kafka.CardNotificationDeserializer;
+import com.bank.app.cards_service.service.CardNotificationMapper;
+import com.bank.core.entity.CardNotification;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka value encoding of card events: the JSON path against Avro binary, serialized and
+ * deserialized through the producer and consumer (de)serializers. Record sizes are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardEventEncodingBenchmark {
+    private static final String TOPIC = "card-service-topic";
+
+    @Param({"json", "avro"})
+    public String format;
+
+    private CardEventSerializer serializer;
+    private CardNotificationDeserializer deserializer;
+    private CardNotification cardNotification;
+    private RecordHeaders headers;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        serializer = new CardEventSerializer();
+        serializer.configure(Map.of(CardEventSerializer.FORMAT_CONFIG, format), false);
+        deserializer = new CardNotificationDeserializer();
+        cardNotification = CardNotificationMapper.toNotification(BenchmarkCards.card(), "Card block Successfully");
+        headers = new RecordHeaders();
+        encoded = serializer.serialize(TOPIC, headers, cardNotification);
+        System.out.printf("%n%s record value: %d bytes%n", format, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(TOPIC, new RecordHeaders(), cardNotification);
+    }
+
+    @Benchmark
+    public CardNotification deserialize() {
+        return deserializer.deserialize(TOPIC, headers, encoded);
+    }
+}
@@ -0,0 +1,81 @@
+package com.bank.app.cards_service.benchmark;
+
+import com.bank.app.cards_service.CardsServiceApplication;
+import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.repo.CardOutboxRepository;
+import com.bank.app.cards_service.service.CardsService;
+import com.bank.core.entity.CardType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Card issuance one request at a time against bulk issuance of a 1000-card chunk (batched card and
+ * outbox inserts in one transaction), on an in-memory H2 database. Both report cards issued per
+ * millisecond. Kafka is not involved: the outbox relay is effectively disabled.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardIssuanceBenchmark {
+    private static final int CHUNK_SIZE = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Application {
+        ConfigurableApplicationContext context;
+        CardsService cardsService;
+
+        @Setup
+        public void start() {
+            context = new SpringApplicationBuilder(CardsServiceApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(
+                            "cards.outbox.poll-interval-ms=3600000",
+                            "cards.expiry.interval-ms=3600000",
+                            "cards.cache.invalidation.enabled=false",
+                            "logging.level.root=WARN")
+                    .run();
+            cardsService = context.getBean(CardsService.class);
+        }
+
+        @TearDown(Level.Iteration)
+        public void clearOutbox() {
+            context.getBean(CardOutboxRepository.class).deleteAllInBatch();
+        }
+
+        @TearDown
+        public void stop() {
+            context.close();
+        }
+    }
+
+    private static Card request(long userId) {
+        Card card = new Card();
+        card.setUserId(userId);
+        card.setCardHolderName("Jane Doe");
+        card.setCardType(CardType.DEBIT);
+        return card;
+    }
+
+    @Benchmark
+    public Card singleCard(Application application) {
+        return application.cardsService.requestNewCard(request(1L));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public List<Card> bulkChunk(Application application) {
+        List<Card> cards = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            cards.add(request(2L));
+        }
+        return application.cardsService.issueCards(cards);
+    }
+}
@@ -0,0 +1,42 @@
+package com.bank.app.cards_service.benchmark;
+
+import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.service.CardNotificationMapper;
+import com.bank.core.entity.CardNotification;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.BeanUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping a card to the notification sent for every issuance, transition and expiry:
+ * {@link CardNotificationMapper} against the reflective property copy it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardNotificationMappingBenchmark {
+
+    private Card card;
+
+    @Setup
+    public void setUp() {
+        card = BenchmarkCards.card();
+    }
+
+    @Benchmark
+    public CardNotification beanUtilsCopyProperties() {
+        CardNotification cardNotification = new CardNotification();
+        BeanUtils.copyProperties(card, cardNotification);
+        cardNotification.setMessage("Card block Successfully");
+        return cardNotification;
+    }
+
+    @Benchmark
+    public CardNotification mapper() {
+        return CardNotificationMapper.toNotification(card, "Card block Successfully");
+    }
+}
@@ -0,0 +1,47 @@
+package com.bank.app.cards_service.benchmark;
+
+import com.bank.app.cards_service.service.CardNumberBlockAllocator;
+import com.bank.app.cards_service.service.impl.BlockCardNumberGenerator;
+import com.bank.core.entity.CardType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Card number generation. Block reservations are served from memory, so this measures the
+ * PAN construction and the contention on the per-BIN block.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardNumberGeneratorBenchmark {
+
+    private BlockCardNumberGenerator generator;
+
+    @Setup
+    public void setUp() {
+        AtomicLong blocks = new AtomicLong();
+        CardNumberBlockAllocator allocator = new CardNumberBlockAllocator(null) {
+            @Override
+            public long allocate(String bin) {
+                return blocks.getAndIncrement() % 90_000;
+            }
+        };
+        generator = new BlockCardNumberGenerator(allocator, "400000", "410000", 10_000);
+    }
+
+    @Benchmark
+    public String generate() {
+        return generator.generate(CardType.DEBIT);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateContended() {
+        return generator.generate(CardType.DEBIT);
+    }
+}
@@ -0,0 +1,52 @@
+package com.bank.app.cards_service.benchmark;
+
+import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.service.CardNotificationMapper;
+import com.bank.core.entity.CardNotification;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of cards (REST responses) and card notifications (outbox payloads),
+ * with an ObjectMapper configured like Spring Boot's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Card card;
+    private CardNotification cardNotification;
+    private String cardNotificationJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        card = BenchmarkCards.card();
+        cardNotification = CardNotificationMapper.toNotification(card, "Card block Successfully");
+        cardNotificationJson = objectMapper.writeValueAsString(cardNotification);
+    }
+
+    @Benchmark
+    public byte[] serializeCard() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(card);
+    }
+
+    @Benchmark
+    public String serializeCardNotification() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(cardNotification);
+    }
+
+    @Benchmark
+    public CardNotification deserializeCardNotification() throws JsonProcessingException {
+        return objectMapper.readValue(cardNotificationJson, CardNotification.class);
+    }
+}
@@ -0,0 +1,82 @@
+package com.bank.app.cards_service.benchmark;
+
+import com.bank.app.cards_service.CardsServiceApplication;
+import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.repo.CardOutboxRepository;
+import com.bank.app.cards_service.service.CardsService;
+import com.bank.core.entity.CardType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full state-transition path (cache lookup, conditional update, outbox insert, commit and
+ * cache invalidation) against the application running on an in-memory H2 database.
+ * Kafka is not involved: the outbox relay is effectively disabled and invalidations are not broadcast.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardTransitionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Application {
+        ConfigurableApplicationContext context;
+        CardsService cardsService;
+
+        @Setup
+        public void start() {
+            context = new SpringApplicationBuilder(CardsServiceApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(
+                            "cards.outbox.poll-interval-ms=3600000",
+                            "cards.expiry.interval-ms=3600000",
+                            "cards.cache.invalidation.enabled=false",
+                            "logging.level.root=WARN")
+                    .run();
+            cardsService = context.getBean(CardsService.class);
+        }
+
+        @TearDown(Level.Iteration)
+        public void clearOutbox() {
+            context.getBean(CardOutboxRepository.class).deleteAllInBatch();
+        }
+
+        @TearDown
+        public void stop() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ActiveCard {
+        Long cardId;
+
+        @Setup
+        public void issue(Application application) {
+            Card card = new Card();
+            card.setUserId(1L);
+            card.setCardHolderName("Jane Doe");
+            card.setCardType(CardType.DEBIT);
+            cardId = application.cardsService.requestNewCard(card).getId();
+            application.cardsService.activateCard(cardId);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public Card blockAndUnblock(Application application, ActiveCard card) {
+        application.cardsService.blockCard(card.cardId);
+        return application.cardsService.unblockCard(card.cardId);
+    }
+
+    @Benchmark
+    public Card getCardById(Application application, ActiveCard card) {
+        return application.cardsService.getCardById(card.cardId);
+    }
+}
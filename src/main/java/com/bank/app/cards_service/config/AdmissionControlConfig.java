@@ -0,0 +1,64 @@
+package com.bank.app.cards_service.config;
+
+import com.bank.app.cards_service.controller.AdmissionControlInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Puts the per-user, per-endpoint and global bulkheads of {@link AdmissionControlInterceptor} in front
+ * of the card endpoints. Turn it off with {@code cards.admission.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cards.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig implements WebMvcConfigurer {
+
+    private final AdmissionControlInterceptor interceptor;
+
+    public AdmissionControlConfig(MeterRegistry meterRegistry, DataSource dataSource,
+                                  @Value("${cards.admission.global-limit:200}") int globalLimit,
+                                  @Value("${cards.admission.per-user-limit:10}") int perUserLimit,
+                                  @Value("${cards.admission.per-endpoint-limit:100}") int perEndpointLimit,
+                                  @Value("${cards.admission.max-pool-waiters:10}") int maxPoolWaiters,
+                                  @Value("${cards.admission.user-header:}") String userHeader,
+                                  @Value("${cards.admission.key-by-address:false}") boolean keyByAddress,
+                                  @Value("${server.forward-headers-strategy:none}") String forwardHeadersStrategy) {
+        // Behind a gateway every request comes from the gateway's address, so keying on the address
+        // would put all users in one bulkhead unless the forwarded client address is used.
+        if (keyByAddress && "none".equalsIgnoreCase(forwardHeadersStrategy)) {
+            throw new IllegalStateException("cards.admission.key-by-address needs server.forward-headers-strategy "
+                    + "(native or framework) so the client address is not the gateway's");
+        }
+        HikariDataSource hikari = unwrapHikari(dataSource);
+        this.interceptor = new AdmissionControlInterceptor(meterRegistry,
+                () -> hikari == null ? null : hikari.getHikariPoolMXBean(),
+                globalLimit, perUserLimit, perEndpointLimit, maxPoolWaiters, userHeader, keyByAddress);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Event streams stay open for minutes and are limited by cards.stream.max-subscribers instead.
+        registry.addInterceptor(interceptor).addPathPatterns("/cards/**").excludePathPatterns("/cards/stream");
+    }
+
+    /**
+     * Find the Hikari pool behind the data source, whose waiting threads signal database saturation.
+     * @param dataSource The application data source.
+     * @return The Hikari data source, or null if the pool is not Hikari.
+     */
+    private static HikariDataSource unwrapHikari(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.bank.app.cards_service.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread routing hint for the replica routing data source. Code that must see the latest
+ * committed data, such as reads right after a write, runs its queries through {@link #onPrimary}.
+ * Without replica routing the hint has no effect.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    /**
+     * Run a query on the primary database even if it is read-only.
+     * @param query The query; it must open its own transaction, so the connection is taken inside it.
+     * @return The result of the query.
+     */
+    public static <T> T onPrimary(Supplier<T> query) {
+        Boolean previous = PRIMARY.get();
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY.remove();
+            } else {
+                PRIMARY.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Check whether the current thread asked for the primary database.
+     * @return true inside {@link #onPrimary}.
+     */
+    static boolean isPrimaryRequired() {
+        return PRIMARY.get() != null;
+    }
+}
@@ -0,0 +1,93 @@
+package com.bank.app.cards_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read/write split, enabled with {@code cards.datasource.routing.enabled=true}. The primary is
+ * configured as usual through {@code spring.datasource.*} and migrated by Flyway; read-only
+ * transactions are routed to the replicas listed in {@code cards.datasource.replica-urls}.
+ * Each pool reports its usage as {@code hikaricp.connections.*}, tagged with its pool name.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cards.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    /**
+     * The primary database, which takes all writes and the reads that must be current.
+     * @param properties The spring.datasource properties.
+     * @return The primary pool.
+     */
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    /**
+     * The application data source, routing each transaction to the primary or a replica.
+     * @return The routing data source behind a lazy connection proxy.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, MeterRegistry meterRegistry,
+                                 @Value("${cards.datasource.replica-urls}") List<String> replicaUrls,
+                                 @Value("${cards.datasource.replica-username:${spring.datasource.username:}}") String username,
+                                 @Value("${cards.datasource.replica-password:${spring.datasource.password:}}") String password,
+                                 @Value("${cards.datasource.replica-pool-size:10}") int poolSize,
+                                 @Value("${cards.datasource.max-staleness-ms:1000}") long maxStalenessMs,
+                                 @Value("${cards.datasource.replica-lag-query:}") String lagQuery) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : replicaUrls) {
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            String name = "replica-" + (replicas.size() + 1);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(name);
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(name, replica);
+        }
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicas, meterRegistry,
+                maxStalenessMs, lagQuery);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Take lagging or unreachable replicas out of rotation and bring recovered ones back.
+     */
+    @Scheduled(fixedDelayString = "${cards.datasource.replica-check-interval-ms:5000}")
+    public void checkReplicas() {
+        if (routingDataSource != null) {
+            routingDataSource.checkReplicas();
+        }
+    }
+}
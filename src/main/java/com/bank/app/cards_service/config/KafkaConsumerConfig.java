@@ -0,0 +1,60 @@
+package com.bank.app.cards_service.config;
+
+import com.bank.app.cards_service.dto.CardInvalidationMessage;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+    @Value("${cards.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    /**
+     * Configures the consumer properties for the cache invalidation listener. Each replica
+     * only needs invalidations published after it started, so it begins at the latest offset.
+     * @return a Map containing the consumer configuration properties.
+     */
+    @Bean
+    public Map<String, Object> cardInvalidationConsumerConfig() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return props;
+    }
+
+    /**
+     * Creates a ConsumerFactory that reads cache invalidation messages.
+     * @return a ConsumerFactory instance.
+     */
+    @Bean
+    public ConsumerFactory<String, CardInvalidationMessage> cardInvalidationConsumerFactory() {
+        JsonDeserializer<CardInvalidationMessage> valueDeserializer =
+                new JsonDeserializer<>(CardInvalidationMessage.class, false);
+        return new DefaultKafkaConsumerFactory<>(cardInvalidationConsumerConfig(), new StringDeserializer(),
+                valueDeserializer);
+    }
+
+    /**
+     * Creates the listener container factory used for cache invalidation messages.
+     * @return a ConcurrentKafkaListenerContainerFactory instance.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, CardInvalidationMessage> cardInvalidationListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, CardInvalidationMessage> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(cardInvalidationConsumerFactory());
+        return factory;
+    }
+}
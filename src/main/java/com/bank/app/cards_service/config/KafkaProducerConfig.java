@@ -1,14 +1,18 @@
 package com.bank.app.cards_service.config;
 
+import com.bank.app.cards_service.kafka.CardEventSerializer;
+import com.bank.app.cards_service.service.CardCacheInvalidator;
+import com.bank.app.cards_service.service.CardEventSender;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -16,25 +20,89 @@ import java.util.Map;
 @Configuration
 public class KafkaProducerConfig {
 
+    @Value("${cards.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${cards.kafka.producer.acks:all}")
+    private String acks;
+
+    @Value("${cards.kafka.producer.enable-idempotence:true}")
+    private boolean enableIdempotence;
+
+    @Value("${cards.kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${cards.kafka.producer.linger-ms:10}")
+    private int lingerMs;
+
+    @Value("${cards.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${cards.kafka.producer.buffer-memory:33554432}")
+    private long bufferMemory;
+
+    @Value("${cards.kafka.producer.max-in-flight-requests-per-connection:5}")
+    private int maxInFlightRequestsPerConnection;
+
+    @Value("${cards.kafka.producer.delivery-timeout-ms:120000}")
+    private int deliveryTimeoutMs;
+
+    @Value("${cards.kafka.producer.event-format:json}")
+    private String eventFormat;
+
+    @Value("${cards.cache.invalidation.max-block-ms:500}")
+    private int invalidationMaxBlockMs;
+
+    @Value("${cards.kafka.topic.partitions:3}")
+    private int topicPartitions;
+
     /**
-     * Creates a new Kafka topic for the Card Service application.
+     * Creates a new Kafka topic for the Card Service application. Records are keyed by card ID,
+     * so the partition count (cards.kafka.topic.partitions) bounds consumer parallelism.
      * @return a NewTopic instance with the specified name, partitions, and replication factor.
      */
     @Bean
     public NewTopic createTopic() {
-        return new NewTopic("card-service-topic", 3, (short) 1);
+        return new NewTopic(CardEventSender.TOPIC, topicPartitions, (short) 1);
     }
 
     /**
-     * Configures the producer properties for Kafka.
+     * Creates the Kafka topic used to broadcast card cache invalidations between replicas.
+     * @return a NewTopic instance with the specified name, partitions, and replication factor.
+     */
+    @Bean
+    public NewTopic createCacheInvalidationTopic() {
+        return new NewTopic(CardCacheInvalidator.TOPIC, 1, (short) 1);
+    }
+
+    /**
+     * Configures the producer properties for Kafka, including the batching, compression
+     * and delivery guarantees tuned through the cards.kafka.producer.* properties.
+     * Card events are encoded as JSON or Avro depending on cards.kafka.producer.event-format.
+     * Failed sends are retried by the producer until the delivery timeout; with idempotence and at
+     * most 5 requests in flight the retries keep the records of a partition in order.
      * @return a Map containing the producer configuration properties.
      */
     @Bean
     public Map<String, Object> producerConfig() {
+        if (enableIdempotence && maxInFlightRequestsPerConnection > 5) {
+            throw new IllegalStateException(
+                    "cards.kafka.producer.max-in-flight-requests-per-connection must be at most 5 with idempotence");
+        }
         Map<String, Object> props = new HashMap<>();
-        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, CardEventSerializer.class);
+        props.put(CardEventSerializer.FORMAT_CONFIG, eventFormat);
+        props.put(ProducerConfig.ACKS_CONFIG, acks);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, enableIdempotence);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlightRequestsPerConnection);
+        props.put(ProducerConfig.RETRIES_CONFIG, Integer.MAX_VALUE);
+        props.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
         return props;
     }
 
@@ -52,7 +120,22 @@ public class KafkaProducerConfig {
      * @return a KafkaTemplate instance.
      */
     @Bean
+    @Primary
     public KafkaTemplate<String, Object> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
+
+    /**
+     * Creates the KafkaTemplate for cache invalidation broadcasts. It has its own producer that
+     * gives up after cards.cache.invalidation.max-block-ms when the broker metadata is unavailable,
+     * as a late invalidation is better dropped than queued behind card events.
+     * @return a KafkaTemplate instance.
+     */
+    @Bean
+    public KafkaTemplate<String, Object> cacheInvalidationKafkaTemplate() {
+        Map<String, Object> props = new HashMap<>(producerConfig());
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, invalidationMaxBlockMs);
+        props.put(ProducerConfig.CLIENT_ID_CONFIG, "cards-cache-invalidation");
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+    }
 }
\ No newline at end of file
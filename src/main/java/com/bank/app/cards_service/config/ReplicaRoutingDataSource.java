@@ -0,0 +1,147 @@
+package com.bank.app.cards_service.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only transactions to a replica and everything else to the primary. A replica is
+ * only used while it is reachable and, if a lag query is configured, no more than the staleness
+ * tolerance behind the primary; otherwise reads fall back to the primary. Reads marked with
+ * {@link DataSourceRouting#onPrimary} always go to the primary.
+ * <p>
+ * The routing decision is taken when a connection is opened, so the data source must be used
+ * behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which opens
+ * it only once the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    /** State of one replica, updated by {@link #checkReplicas()}. */
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean available = true;
+        private volatile double lagMillis = Double.NaN;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final List<Replica> replicas;
+    private final MeterRegistry meterRegistry;
+    private final long maxStalenessMs;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Create the routing data source.
+     * @param primary The primary database.
+     * @param replicas The replicas by name.
+     * @param meterRegistry Registry for the routing and replica metrics.
+     * @param maxStalenessMs How far behind the primary a replica may be and still serve reads.
+     * @param lagQuery A query returning a replica's lag in milliseconds, or blank to only check that it is reachable.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, MeterRegistry meterRegistry,
+                                    long maxStalenessMs, String lagQuery) {
+        this.replicas = replicas.entrySet().stream().map(e -> new Replica(e.getKey(), e.getValue())).toList();
+        this.meterRegistry = meterRegistry;
+        this.maxStalenessMs = maxStalenessMs;
+        this.lagQuery = lagQuery;
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        for (Replica replica : this.replicas) {
+            Gauge.builder("cards.datasource.replica.available", replica, r -> r.available ? 1 : 0)
+                    .description("Whether the replica currently serves reads")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+            Gauge.builder("cards.datasource.replica.lag", replica, r -> r.lagMillis)
+                    .description("Replication lag measured by the lag query")
+                    .tag("replica", replica.name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return route(PRIMARY, "write");
+        }
+        if (DataSourceRouting.isPrimaryRequired()) {
+            return route(PRIMARY, "read_your_writes");
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.available) {
+                return route(replica.name, "read");
+            }
+        }
+        return route(PRIMARY, "replica_unavailable");
+    }
+
+    /**
+     * Check every replica's reachability and lag, taking it out of rotation while it is down or
+     * further behind than the staleness tolerance.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean available;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (StringUtils.hasText(lagQuery)) {
+                    replica.lagMillis = lag(connection);
+                    available = replica.lagMillis <= maxStalenessMs;
+                } else {
+                    available = connection.isValid(1);
+                }
+            } catch (SQLException e) {
+                logger.debug("Replica {} check failed", replica.name, e);
+                available = false;
+            }
+            if (available != replica.available) {
+                logger.warn("Replica {} is now {} (lag {} ms)", replica.name,
+                        available ? "serving reads" : "out of rotation", replica.lagMillis);
+            }
+            replica.available = available;
+        }
+    }
+
+    private double lag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if (!resultSet.next()) {
+                throw new SQLException("Lag query returned no rows");
+            }
+            double lag = resultSet.getDouble(1);
+            // A null lag means replication is not running.
+            return resultSet.wasNull() ? Double.POSITIVE_INFINITY : lag;
+        }
+    }
+
+    private String route(String target, String reason) {
+        meterRegistry.counter("cards.datasource.routing", "target", target, "reason", reason).increment();
+        return target;
+    }
+}
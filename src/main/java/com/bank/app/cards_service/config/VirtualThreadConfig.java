@@ -0,0 +1,58 @@
+package com.bank.app.cards_service.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual thread execution mode, enabled with {@code cards.execution.mode=virtual} on Java 21+.
+ * <p>
+ * Tomcat handles each request on its own virtual thread instead of a bounded platform thread pool,
+ * so requests waiting on MySQL no longer hold one of the 200 worker threads; the Hikari pool becomes
+ * the limit on concurrent database work. Scheduled jobs (card expiry, outbox relay, which sends to
+ * Kafka) and async MVC processing such as the NDJSON export run on virtual threads as well.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cards.execution.mode", havingValue = "virtual")
+public class VirtualThreadConfig {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    /**
+     * Run Tomcat request processing on virtual threads.
+     * @return A customizer replacing the Tomcat worker pool.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        logger.info("Handling requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newThreadPerTaskExecutor("cards-http-"));
+    }
+
+    /**
+     * Run async request processing and other application tasks on virtual threads.
+     * @return The application task executor.
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(VirtualThreads.newThreadPerTaskExecutor("cards-task-"));
+    }
+
+    /**
+     * Run scheduled jobs on a virtual thread. Like the default scheduler, jobs run one at a time.
+     * @return The task scheduler.
+     */
+    @Bean
+    public TaskScheduler taskScheduler() {
+        return new ConcurrentTaskScheduler(
+                Executors.newSingleThreadScheduledExecutor(VirtualThreads.newThreadFactory("cards-scheduling-")));
+    }
+}
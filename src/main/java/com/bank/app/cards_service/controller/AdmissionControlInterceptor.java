@@ -0,0 +1,216 @@
+package com.bank.app.cards_service.controller;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for the card endpoints. Each request must get a slot from three bulkheads
+ * without waiting: its caller's, its endpoint's and the global one. A request over a caller or
+ * endpoint limit is rejected with 429; one over the global limit, or arriving while the database
+ * connection pool already has too many threads waiting for a connection, gets 503. Both carry a
+ * Retry-After header.
+ * <p>
+ * The per-user bulkhead is keyed on the authenticated principal, else the user identity header set
+ * by the gateway (cards.admission.user-header, off by default), else the {@code userId} path
+ * variable. Requests with none of these are keyed on the client address only if
+ * cards.admission.key-by-address is on, which needs forwarded-header handling so the address is
+ * the client's rather than the gateway's; otherwise they only count against the endpoint and
+ * global bulkheads. A user's entry exists only while it has requests in flight, so it is never
+ * evicted with permits checked out.
+ */
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlInterceptor.class);
+
+    private static final String PERMITS_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".permits";
+    private static final String USER_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".user";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final MeterRegistry meterRegistry;
+    private final Supplier<HikariPoolMXBean> pool;
+    private final int perUserLimit;
+    private final int perEndpointLimit;
+    private final int maxPoolWaiters;
+    private final String userHeader;
+    private final boolean keyByAddress;
+    private final Semaphore global;
+    private final Map<String, Integer> users = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Create the bulkheads.
+     * @param meterRegistry Registry for the rejection and in-flight metrics.
+     * @param pool The database connection pool, or a supplier of null if it is not a Hikari pool.
+     * @param globalLimit The maximum number of card requests in flight.
+     * @param perUserLimit The maximum number of requests in flight per caller.
+     * @param perEndpointLimit The maximum number of requests in flight per endpoint.
+     * @param maxPoolWaiters Reject requests while this many threads are waiting for a database connection.
+     * @param userHeader The header in which the gateway passes the authenticated user, or null if none.
+     * @param keyByAddress Whether requests without a user are limited per client address.
+     */
+    public AdmissionControlInterceptor(MeterRegistry meterRegistry, Supplier<HikariPoolMXBean> pool,
+                                       int globalLimit, int perUserLimit, int perEndpointLimit, int maxPoolWaiters,
+                                       String userHeader, boolean keyByAddress) {
+        this.meterRegistry = meterRegistry;
+        this.pool = pool;
+        this.perUserLimit = perUserLimit;
+        this.perEndpointLimit = perEndpointLimit;
+        this.maxPoolWaiters = maxPoolWaiters;
+        this.userHeader = userHeader == null || userHeader.isBlank() ? null : userHeader;
+        this.keyByAddress = keyByAddress;
+        this.global = new Semaphore(globalLimit);
+        Gauge.builder("cards.admission.in-flight", global, permits -> globalLimit - permits.availablePermits())
+                .description("Card requests admitted and still in flight")
+                .register(meterRegistry);
+        Gauge.builder("cards.admission.users", users, Map::size)
+                .description("Users with requests in flight")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!(handler instanceof HandlerMethod handlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            // Async dispatches of a streaming response still hold the permits of the original request.
+            return true;
+        }
+        String endpoint = handlerMethod.getMethod().getName();
+        HikariPoolMXBean hikari = pool.get();
+        if (hikari != null && hikari.getThreadsAwaitingConnection() >= maxPoolWaiters) {
+            return reject(response, endpoint, "db_pool", HttpStatus.SERVICE_UNAVAILABLE,
+                    "Service is busy, please retry");
+        }
+
+        List<Semaphore> acquired = new ArrayList<>(3);
+        if (!tryAcquire(global, acquired)) {
+            return reject(response, endpoint, "global", HttpStatus.SERVICE_UNAVAILABLE, "Service is busy, please retry");
+        }
+        if (!tryAcquire(endpoints.computeIfAbsent(endpoint, this::endpointBulkhead), acquired)) {
+            release(acquired);
+            return reject(response, endpoint, "endpoint", HttpStatus.TOO_MANY_REQUESTS, "Too many requests");
+        }
+        String user = user(request);
+        if (user != null && !tryAcquireUser(user)) {
+            release(acquired);
+            return reject(response, endpoint, "user", HttpStatus.TOO_MANY_REQUESTS, "Too many requests");
+        }
+        request.setAttribute(PERMITS_ATTRIBUTE, acquired);
+        if (user != null) {
+            request.setAttribute(USER_ATTRIBUTE, user);
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object permits = request.getAttribute(PERMITS_ATTRIBUTE);
+        if (permits != null) {
+            request.removeAttribute(PERMITS_ATTRIBUTE);
+            release((List<Semaphore>) permits);
+        }
+        Object user = request.getAttribute(USER_ATTRIBUTE);
+        if (user != null) {
+            request.removeAttribute(USER_ATTRIBUTE);
+            users.computeIfPresent((String) user, (key, inFlight) -> inFlight == 1 ? null : inFlight - 1);
+        }
+    }
+
+    /**
+     * Identify the user a request counts against.
+     * @param request The request.
+     * @return The key of the user's bulkhead, or null if the request is not limited per user.
+     */
+    private String user(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null && principal.getName() != null) {
+            return "principal:" + principal.getName();
+        }
+        if (userHeader != null) {
+            String user = request.getHeader(userHeader);
+            if (user != null && !user.isBlank()) {
+                return "user:" + user;
+            }
+        }
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables instanceof Map<?, ?> map && map.get("userId") != null) {
+            return "user:" + map.get("userId");
+        }
+        return keyByAddress ? "address:" + request.getRemoteAddr() : null;
+    }
+
+    /**
+     * Take a slot of a user's bulkhead. The count is created with the first request in flight
+     * and removed when the last one completes.
+     * @param user The key of the user's bulkhead.
+     * @return true if the user was under the limit.
+     */
+    private boolean tryAcquireUser(String user) {
+        boolean[] admitted = new boolean[1];
+        users.compute(user, (key, inFlight) -> {
+            int current = inFlight == null ? 0 : inFlight;
+            if (current >= perUserLimit) {
+                return inFlight;
+            }
+            admitted[0] = true;
+            return current + 1;
+        });
+        return admitted[0];
+    }
+
+    private Semaphore endpointBulkhead(String endpoint) {
+        Semaphore semaphore = new Semaphore(perEndpointLimit);
+        Gauge.builder("cards.admission.endpoint.in-flight", semaphore,
+                        permits -> perEndpointLimit - permits.availablePermits())
+                .description("Requests in flight per card endpoint")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        return semaphore;
+    }
+
+    private static boolean tryAcquire(Semaphore semaphore, List<Semaphore> acquired) {
+        if (!semaphore.tryAcquire()) {
+            return false;
+        }
+        acquired.add(semaphore);
+        return true;
+    }
+
+    private static void release(List<Semaphore> acquired) {
+        for (Semaphore semaphore : acquired) {
+            semaphore.release();
+        }
+        acquired.clear();
+    }
+
+    private boolean reject(HttpServletResponse response, String endpoint, String reason, HttpStatus status,
+                           String message) throws IOException {
+        logger.debug("Rejected {} request: {} limit reached", endpoint, reason);
+        meterRegistry.counter("cards.admission.rejected", "endpoint", endpoint, "reason", reason).increment();
+        response.setStatus(status.value());
+        response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+        return false;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bank.app.cards_service.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.security.Principal;
+
+/**
+ * Identifies the client behind a request from what it cannot choose freely: the authenticated
+ * principal when the container or gateway authenticated the request, otherwise the client address.
+ */
+final class Callers {
+
+    private Callers() {
+    }
+
+    /**
+     * Identify the caller of a request.
+     * @param request The request.
+     * @return "principal:" and the principal name, or "address:" and the client address.
+     */
+    static String of(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null && principal.getName() != null) {
+            return "principal:" + principal.getName();
+        }
+        return "address:" + request.getRemoteAddr();
+    }
+}
@@ -1,17 +1,42 @@
 package com.bank.app.cards_service.controller;
 
+import com.bank.app.cards_service.dto.BulkIssueRequest;
+import com.bank.app.cards_service.dto.BulkIssueStatus;
+import com.bank.app.cards_service.dto.BulkTransitionRequest;
+import com.bank.app.cards_service.dto.BulkTransitionResult;
+import com.bank.app.cards_service.dto.CardPage;
+import com.bank.app.cards_service.dto.CardSummary;
 import com.bank.app.cards_service.entity.Card;
 import com.bank.app.cards_service.exception.CardNotFoundException;
+import com.bank.app.cards_service.exception.CardStatusConflictException;
+import com.bank.app.cards_service.service.CardEventHub;
+import com.bank.app.cards_service.service.UserCardsCache;
+import com.bank.app.cards_service.service.impl.BulkIssuanceJob;
 import com.bank.app.cards_service.service.impl.CardServiceImpl;
+import com.bank.core.entity.CardStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/cards")
@@ -20,10 +45,22 @@ public class CardController {
 
     private static final Logger logger = LoggerFactory.getLogger(CardController.class);
 
+    private static final int STREAM_FLUSH_INTERVAL = 100;
+
     private final CardServiceImpl cardService;
 
-    public CardController(CardServiceImpl cardService) {
+    private final BulkIssuanceJob bulkIssuanceJob;
+
+    private final CardEventHub cardEventHub;
+
+    private final ObjectMapper objectMapper;
+
+    public CardController(CardServiceImpl cardService, BulkIssuanceJob bulkIssuanceJob, CardEventHub cardEventHub,
+                          ObjectMapper objectMapper) {
         this.cardService = cardService;
+        this.bulkIssuanceJob = bulkIssuanceJob;
+        this.cardEventHub = cardEventHub;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -62,6 +99,9 @@ public ResponseEntity<?> activateCard(@PathVariable Long cardId) {
     } catch (CardNotFoundException e) {
         logger.error("Card not found with ID: {}", cardId);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Card not found with ID: " + cardId);
+    } catch (CardStatusConflictException e) {
+        logger.error("Card status conflict for ID {}: {}", cardId, e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
     } catch (Exception e) {
         logger.error("Error activating card with ID: {}", cardId, e);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while activating the card. Please try again later.");
@@ -88,6 +128,9 @@ public ResponseEntity<?> activateCard(@PathVariable Long cardId) {
             // Returns a 404 response if the card with specified ID does not exist.
             logger.error("Card not found with ID: {}", cardId);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Card not found with ID: " + cardId);
+        } catch (CardStatusConflictException e) {
+            logger.error("Card status conflict for ID {}: {}", cardId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             // Logs and returns a 500 response if any other error occurs.
             logger.error("Error requesting block for card with ID: {}", cardId, e);
@@ -116,6 +159,9 @@ public ResponseEntity<?> activateCard(@PathVariable Long cardId) {
             // Returns a 404 response if the card with specified ID does not exist.
             logger.error("Card not found with ID: {}", cardId);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Card not found with ID: " + cardId);
+        } catch (CardStatusConflictException e) {
+            logger.error("Card status conflict for ID {}: {}", cardId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             // Logs and returns a 500 response if any other error occurs.
             logger.error("Error requesting unblock for card with ID: {}", cardId, e);
@@ -139,6 +185,9 @@ public ResponseEntity<?> blockCard(@PathVariable Long cardId) {
     } catch (CardNotFoundException e) {
         logger.error("Card not found with ID: {}", cardId);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Card not found with ID: " + cardId);
+    } catch (CardStatusConflictException e) {
+        logger.error("Card status conflict for ID {}: {}", cardId, e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
     } catch (Exception e) {
         logger.error("Error blocking card with ID: {}", cardId, e);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while blocking the card. Please try again later.");
@@ -160,6 +209,9 @@ public ResponseEntity<?> unblockCard(@PathVariable Long cardId) {
     } catch (CardNotFoundException e) {
         logger.error("Card not found with ID: {}", cardId);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Card not found with ID: " + cardId);
+    } catch (CardStatusConflictException e) {
+        logger.error("Card status conflict for ID {}: {}", cardId, e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
     } catch (Exception e) {
         logger.error("Error unblocking card with ID: {}", cardId, e);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while unblocking the card. Please try again later.");
@@ -181,6 +233,9 @@ public ResponseEntity<?> cancelCard(@PathVariable Long cardId) {
     } catch (CardNotFoundException e) {
         logger.error("Card not found with ID: {}", cardId);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Card not found with ID: " + cardId);
+    } catch (CardStatusConflictException e) {
+        logger.error("Card status conflict for ID {}: {}", cardId, e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
     } catch (Exception e) {
         logger.error("Error cancelling card with ID: {}", cardId, e);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while cancelling the card. Please try again later.");
@@ -188,17 +243,106 @@ public ResponseEntity<?> cancelCard(@PathVariable Long cardId) {
 }
 
     /**
-     * Endpoint to get card details by card ID.
+     * Endpoint to apply one state transition (activate, block, unblock or cancel) to many cards.
+     * @param request The transition and the IDs of the cards to apply it to.
+     * @return The outcome for each card: changed, skipped because of its status, or not found.
+     */
+    @Operation(summary = "Apply a state transition to many cards")
+    @PostMapping("/bulk/transition")
+    public ResponseEntity<?> bulkTransition(@RequestBody BulkTransitionRequest request) {
+        try {
+            logger.debug("Applying bulk transition {}", request.getTransition());
+            List<BulkTransitionResult> results = cardService.bulkTransition(request.getTransition(), request.getCardIds());
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid bulk transition request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid input: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error applying bulk transition {}", request.getTransition(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while applying the bulk transition. Please try again later.");
+        }
+    }
+
+    /**
+     * Endpoint to issue many cards in a background job.
+     * @param request The card details for the new cards.
+     * @return 202 with the job status; poll the Location for progress.
+     */
+    @Operation(summary = "Issue many cards in a background job")
+    @PostMapping("/bulk/issue")
+    public ResponseEntity<?> bulkIssue(@RequestBody BulkIssueRequest request) {
+        try {
+            logger.debug("Starting bulk issuance");
+            BulkIssueStatus status = bulkIssuanceJob.submit(request.getCards());
+            return ResponseEntity.accepted().location(URI.create("/cards/bulk/issue/" + status.getJobId())).body(status);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid bulk issuance request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid input: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.warn("Bulk issuance request rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "60").body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error starting bulk issuance", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while starting the bulk issuance. Please try again later.");
+        }
+    }
+
+    /**
+     * Endpoint to get the progress of a bulk issuance job.
+     * @param jobId The ID of the job.
+     * @return The job status: state, cards issued so far and total.
+     */
+    @Operation(summary = "Get the progress of a bulk issuance job")
+    @GetMapping("/bulk/issue/{jobId}")
+    public ResponseEntity<?> getBulkIssueStatus(@PathVariable String jobId) {
+        BulkIssueStatus status = bulkIssuanceJob.getStatus(jobId);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Bulk issuance job not found: " + jobId);
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    /**
+     * Endpoint to receive card status changes as server-sent events ("card-status" events with
+     * the card ID, user ID, new and previous status and version), instead of polling.
+     * @param userId Only stream changes to this user's cards; all users if omitted.
+     * @param cardId Only stream changes to this card; all cards if omitted.
+     * @return An open event stream, or 503 if too many clients are connected.
+     */
+    @Operation(summary = "Stream card status changes as server-sent events")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamCardChanges(@RequestParam(required = false) Long userId,
+                                                        @RequestParam(required = false) Long cardId) {
+        try {
+            logger.debug("Opening card event stream for user ID {} and card ID {}", userId, cardId);
+            return ResponseEntity.ok(cardEventHub.subscribe(userId, cardId));
+        } catch (IllegalStateException e) {
+            logger.warn("Card event stream rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+
+    /**
+     * Endpoint to get card details by card ID. The response carries the card's version as ETag;
+     * a request whose If-None-Match still matches the version in the database gets 304 without
+     * the card being loaded.
      * @param cardId The ID of the card to retrieve.
-     * @return The card details.
+     * @param ifNoneMatch The ETags of the client's copy, if any.
+     * @return The card details, or 304 if the client's copy is current.
      */
     @Operation(summary = "Get card details")
 @GetMapping("/{cardId}")
-public ResponseEntity<?> getCardById(@PathVariable Long cardId) {
+public ResponseEntity<?> getCardById(@PathVariable Long cardId,
+                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) List<String> ifNoneMatch) {
     try {
         logger.debug("Fetching card details for ID: {}", cardId);
+        Long version = cardService.getCardVersion(cardId);
+        if (version != null && matches(ifNoneMatch, eTag(version))) {
+            return conditional(version, HttpStatus.NOT_MODIFIED).build();
+        }
         Card card = cardService.getCardById(cardId);
-        return ResponseEntity.ok(card);
+        // Spring answers 304 itself, without serializing, if the loaded version matches.
+        return conditional(card.getVersion(), HttpStatus.OK).body(card);
     } catch (CardNotFoundException e) {
         logger.error("Card not found with ID: {}", cardId);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Card not found with ID: " + cardId);
@@ -209,17 +353,25 @@ public ResponseEntity<?> getCardById(@PathVariable Long cardId) {
 }
 
     /**
-     * Endpoint to get all cards by user ID.
+     * Endpoint to get all cards by user ID. The response carries the aggregate version of the
+     * user's cards as ETag; a request whose If-None-Match still matches the aggregate version in
+     * the database gets 304 without the cards being loaded.
      * @param userId The ID of the user whose cards are to be retrieved.
-     * @return A list of cards belonging to the user.
+     * @param ifNoneMatch The ETags of the client's copy, if any.
+     * @return A list of cards belonging to the user, or 304 if the client's copy is current.
      */
    @Operation(summary = "Get all cards by user ID")
 @GetMapping("/user/{userId}")
-public ResponseEntity<?> getCardsByUserId(@PathVariable Long userId) {
+public ResponseEntity<?> getCardsByUserId(@PathVariable Long userId,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) List<String> ifNoneMatch) {
     try {
         logger.debug("Fetching cards for user ID: {}", userId);
+        Long version = cardService.getUserCardsVersion(userId);
+        if (version != null && matches(ifNoneMatch, eTag(version))) {
+            return conditional(version, HttpStatus.NOT_MODIFIED).build();
+        }
         List<Card> cards = cardService.getCardsByUserId(userId);
-        return ResponseEntity.ok(cards);
+        return conditional(UserCardsCache.versionOf(cards), HttpStatus.OK).body(cards);
     } catch (CardNotFoundException e) {
         logger.error("Cards not found for user ID: {}", userId);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Cards not found for user ID: " + userId);
@@ -229,6 +381,65 @@ public ResponseEntity<?> getCardsByUserId(@PathVariable Long userId) {
     }
 }
 
+    /**
+     * Start a response that clients must revalidate, with the given version as ETag.
+     * @param version The version of the representation, or null if it has none.
+     * @param status The response status.
+     * @return The response builder.
+     */
+    private static ResponseEntity.BodyBuilder conditional(Long version, HttpStatus status) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status).cacheControl(CacheControl.noCache());
+        return version == null ? response : response.eTag(eTag(version));
+    }
+
+    private static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Check an If-None-Match header against the current ETag, using weak comparison as GET requires.
+     * @param ifNoneMatch The ETags from the header, or null if it was not sent.
+     * @param eTag The current ETag.
+     * @return true if the client's copy is current.
+     */
+    private static boolean matches(List<String> ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch) {
+            String candidate = tag.trim();
+            if (candidate.equals("*") || candidate.equals(eTag) || candidate.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Endpoint to get compact summaries of all cards of a user.
+     * @param userId The ID of the user whose cards are to be retrieved.
+     * @param fields The summary fields to include; all of them if omitted.
+     * @return A list of card summaries belonging to the user.
+     */
+    @Operation(summary = "Get card summaries by user ID")
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<?> getCardSummariesByUserId(@PathVariable Long userId,
+                                                      @RequestParam(required = false) Set<String> fields) {
+        try {
+            logger.debug("Fetching card summaries for user ID: {}", userId);
+            FilterProvider filter = summaryFields(fields);
+            MappingJacksonValue body = new MappingJacksonValue(cardService.getCardSummariesByUserId(userId));
+            body.setFilters(filter);
+            return ResponseEntity.ok(body);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid card summary request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid input: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error fetching card summaries for user ID: {}", userId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching the cards. Please try again later.");
+        }
+    }
+
     /**
      * Endpoint to get all cards except those with status ACTIVE.
      * @return A list of non-active cards.
@@ -245,4 +456,101 @@ public ResponseEntity<?> getAllNonActiveCards() {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching the non-active cards. Please try again later.");
     }
 }
+
+    /**
+     * Endpoint to get compact summaries of all cards except those with status ACTIVE.
+     * @param fields The summary fields to include; all of them if omitted.
+     * @return A list of non-active card summaries.
+     */
+    @Operation(summary = "Get summaries of all cards except those with status ACTIVE")
+    @GetMapping("/non-active/summary")
+    public ResponseEntity<?> getNonActiveCardSummaries(@RequestParam(required = false) Set<String> fields) {
+        try {
+            logger.debug("Fetching summaries of all non-active cards");
+            FilterProvider filter = summaryFields(fields);
+            MappingJacksonValue body = new MappingJacksonValue(cardService.getNonActiveCardSummaries());
+            body.setFilters(filter);
+            return ResponseEntity.ok(body);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid card summary request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid input: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error fetching non-active card summaries", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching the non-active cards. Please try again later.");
+        }
+    }
+
+    /**
+     * Build the serialization filter selecting the requested card summary fields.
+     * @param fields The requested fields, or null/empty for all of them.
+     * @return The filter provider to serialize the summaries with.
+     * @throws IllegalArgumentException if an unknown field is requested.
+     */
+    private FilterProvider summaryFields(Set<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return new SimpleFilterProvider().addFilter(CardSummary.FILTER, SimpleBeanPropertyFilter.serializeAll());
+        }
+        for (String field : fields) {
+            if (!CardSummary.FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown field " + field + "; allowed fields are " + CardSummary.FIELDS);
+            }
+        }
+        return new SimpleFilterProvider().addFilter(CardSummary.FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields));
+    }
+
+    /**
+     * Endpoint to get one page of non-active cards, paginated by card ID.
+     * @param status The non-active statuses to include; all of them if omitted.
+     * @param afterId The cursor returned with the previous page; omitted for the first page.
+     * @param limit The maximum number of cards to return.
+     * @return A page of non-active cards and the cursor for the next page.
+     */
+    @Operation(summary = "Get a page of non-active cards")
+    @GetMapping("/non-active/page")
+    public ResponseEntity<?> getNonActiveCardsPage(@RequestParam(required = false) Set<CardStatus> status,
+                                                   @RequestParam(required = false) Long afterId,
+                                                   @RequestParam(defaultValue = "100") int limit) {
+        try {
+            logger.debug("Fetching page of non-active cards after ID: {}", afterId);
+            CardPage page = cardService.getNonActiveCardsPage(status, afterId, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid non-active cards page request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid input: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error fetching page of non-active cards after ID: {}", afterId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching the non-active cards. Please try again later.");
+        }
+    }
+
+    /**
+     * Endpoint to stream all non-active cards as newline-delimited JSON.
+     * Rows are written as they are read from the database, so the export runs in constant memory.
+     * @param status The non-active statuses to include; all of them if omitted.
+     * @return A streaming response with one card per line.
+     */
+    @Operation(summary = "Stream non-active cards as NDJSON")
+    @GetMapping(value = "/non-active/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> streamNonActiveCards(@RequestParam(required = false) Set<CardStatus> status) {
+        if (status != null && status.contains(CardStatus.ACTIVE)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid input: Status filter may only contain non-active statuses");
+        }
+        logger.debug("Streaming non-active cards");
+        StreamingResponseBody body = outputStream -> {
+            int[] written = {0};
+            cardService.streamNonActiveCards(status, card -> {
+                try {
+                    outputStream.write(objectMapper.writeValueAsBytes(card));
+                    outputStream.write('\n');
+                    if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+                        outputStream.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 }
\ No newline at end of file
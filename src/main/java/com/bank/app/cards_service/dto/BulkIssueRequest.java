@@ -0,0 +1,19 @@
+package com.bank.app.cards_service.dto;
+
+import com.bank.app.cards_service.entity.Card;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Request to issue many cards, for example for a corporate customer or a campaign.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkIssueRequest {
+
+    private List<Card> cards;  // Each needs a user ID and a card type, as for a single card request
+}
@@ -0,0 +1,36 @@
+package com.bank.app.cards_service.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Progress of a bulk card issuance job.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkIssueStatus {
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED  // Cards issued before the failure stay issued; see issued
+    }
+
+    private String jobId;
+
+    private State state;
+
+    private int total;
+
+    private int issued;
+
+    private String error;  // Why the job failed; null otherwise
+
+    private Instant startedAt;
+
+    private Instant finishedAt;  // null while the job is running
+}
@@ -0,0 +1,21 @@
+package com.bank.app.cards_service.dto;
+
+import com.bank.app.cards_service.entity.CardTransition;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Request to apply one state transition to many cards.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkTransitionRequest {
+
+    private CardTransition transition;
+
+    private List<Long> cardIds;
+}
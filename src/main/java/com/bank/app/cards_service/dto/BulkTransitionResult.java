@@ -0,0 +1,27 @@
+package com.bank.app.cards_service.dto;
+
+import com.bank.core.entity.CardStatus;
+import lombok.*;
+
+/**
+ * Outcome of a bulk state transition for a single card.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkTransitionResult {
+
+    public enum Outcome {
+        CHANGED,
+        SKIPPED_STATUS,  // The card's status does not allow the transition
+        NOT_FOUND
+    }
+
+    private Long cardId;
+
+    private Outcome outcome;
+
+    private CardStatus status;  // Status after the request; null if the card was not found
+}
@@ -0,0 +1,11 @@
+package com.bank.app.cards_service.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A card ID and expiry date, read by projection to load the expiry index.
+ * @param id The ID of the card.
+ * @param expiryDate The card's expiry date.
+ */
+public record CardExpiry(Long id, LocalDate expiryDate) {
+}
@@ -0,0 +1,28 @@
+package com.bank.app.cards_service.dto;
+
+import com.bank.core.entity.CardStatus;
+import lombok.*;
+
+/**
+ * Message broadcast to all replicas when a card changes, so they can drop cached copies of it
+ * and push the change to their event stream subscribers.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CardInvalidationMessage {
+
+    private String origin;  // Instance that made the change
+
+    private Long cardId;  // Null when all of the user's cards are invalidated, as after a bulk issue
+
+    private Long userId;
+
+    private CardStatus status;  // Status after the change; null for bulk issues and from older instances
+
+    private CardStatus previousStatus;
+
+    private Long version;
+}
@@ -0,0 +1,21 @@
+package com.bank.app.cards_service.dto;
+
+import com.bank.app.cards_service.entity.Card;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated card listing.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CardPage {
+
+    private List<Card> items;
+
+    private Long nextCursor;  // Pass as afterId to fetch the next page; null on the last page
+}
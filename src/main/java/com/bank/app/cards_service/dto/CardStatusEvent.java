@@ -0,0 +1,25 @@
+package com.bank.app.cards_service.dto;
+
+import com.bank.core.entity.CardStatus;
+import lombok.*;
+
+/**
+ * Card status change pushed to subscribers of the card event stream.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CardStatusEvent {
+
+    private Long cardId;
+
+    private Long userId;
+
+    private CardStatus status;
+
+    private CardStatus previousStatus;  // null for a newly issued card
+
+    private Long version;  // The card's version after the change; later changes have higher versions
+}
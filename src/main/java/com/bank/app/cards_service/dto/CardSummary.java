@@ -0,0 +1,56 @@
+package com.bank.app.cards_service.dto;
+
+import com.bank.core.entity.CardStatus;
+import com.bank.core.entity.CardType;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import lombok.*;
+
+import java.util.Set;
+
+/**
+ * Compact, read-only view of a card for list endpoints, built directly by projection queries.
+ * The card number is masked to its last four digits.
+ */
+@Getter
+@NoArgsConstructor
+@JsonFilter(CardSummary.FILTER)
+public class CardSummary {
+    public static final String FILTER = "cardSummaryFields";
+    public static final Set<String> FIELDS = Set.of("id", "maskedCardNumber", "cardType", "status");
+
+    private static final int VISIBLE_DIGITS = 4;
+
+    private Long id;
+
+    private String maskedCardNumber;  // e.g. ************5432
+
+    private CardType cardType;
+
+    private CardStatus status;
+
+    public CardSummary(Long id, String cardNumber, CardType cardType, CardStatus status) {
+        this.id = id;
+        this.maskedCardNumber = mask(cardNumber);
+        this.cardType = cardType;
+        this.status = status;
+    }
+
+    /**
+     * Mask all but the last four digits of a card number.
+     * @param cardNumber The card number, with or without separators.
+     * @return The masked number, or null if there is no card number.
+     */
+    static String mask(String cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+        char[] masked = cardNumber.toCharArray();
+        int visible = 0;
+        for (int i = masked.length - 1; i >= 0; i--) {
+            if (Character.isDigit(masked[i]) && visible++ >= VISIBLE_DIGITS) {
+                masked[i] = '*';
+            }
+        }
+        return new String(masked);
+    }
+}
@@ -2,6 +2,7 @@ package com.bank.app.cards_service.entity;
 
 import com.bank.core.entity.CardStatus;
 import com.bank.core.entity.CardType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import lombok.*;
@@ -12,18 +13,32 @@ import java.time.LocalDate;
 @Getter
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Entity
-@Table(name = "cards")
+@Table(name = "cards",
+        indexes = {
+                @Index(name = "idx_cards_user_id", columnList = "userId"),
+                @Index(name = "idx_cards_status_expiry_date", columnList = "status, expiryDate")
+        },
+        uniqueConstraints = @UniqueConstraint(name = "uk_cards_card_number",
+                columnNames = {"cardNumber", "cardNumberDuplicate"}))
 @Schema(description = "Card entity representing card details")
 public class Card {
 
+    // IDs come from blocks reserved in id_blocks rather than AUTO_INCREMENT, so inserts can be batched.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "card_ids")
+    @TableGenerator(name = "card_ids", table = "id_blocks", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "cards", allocationSize = 1000)
     private Long id;
     @Schema(example = "1234-5678-9876-5432")
     private String cardNumber;
 
+    // 0 for every new card; legacy duplicates of a card number carry their own ID (see V3).
+    @JsonIgnore
+    @Column(nullable = false)
+    private long cardNumberDuplicate;
+
     private String cardHolderName;
 
     @Enumerated(EnumType.STRING)
@@ -40,5 +55,8 @@ public class Card {
     @Enumerated(EnumType.STRING)
     private CardStatus status;  // Enum for ACTIVE, BLOCKED, etc.
 
+    @Version
+    private Long version;  // Incremented on every change, for optimistic concurrency
+
 }
 
@@ -0,0 +1,28 @@
+package com.bank.app.cards_service.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+/**
+ * Counter of card number blocks handed out for a BIN. Each instance reserves whole blocks,
+ * so card numbers never collide across replicas.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "card_number_blocks")
+public class CardNumberBlock {
+
+    @Id
+    @Column(length = 8)
+    private String bin;
+
+    @Column(nullable = false)
+    private Long nextBlock;
+}
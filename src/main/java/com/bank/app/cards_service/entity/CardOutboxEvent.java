@@ -0,0 +1,42 @@
+package com.bank.app.cards_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Card event waiting to be relayed to Kafka. Rows are written in the same transaction
+ * as the card change and removed once the broker has acknowledged them. Rows that keep failing
+ * permanently are parked and left for an operator.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "card_outbox")
+public class CardOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long cardId;
+
+    @Column(nullable = false, length = 50)
+    private String eventType;  // Record key, e.g. "Card Issued"
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;  // CardNotification as JSON
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private int attempts;  // Permanent send failures so far
+
+    private LocalDateTime parkedAt;  // Set once the row is no longer relayed
+}
@@ -0,0 +1,43 @@
+package com.bank.app.cards_service.entity;
+
+import com.bank.core.entity.CardStatus;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Card state transitions, with the status each one moves a card to and the statuses it is allowed from.
+ */
+public enum CardTransition {
+    ACTIVATE(CardStatus.ACTIVE, EnumSet.of(CardStatus.PENDING_ACTIVATION)),
+    REQUEST_BLOCK(CardStatus.PENDING_BLOCK, EnumSet.of(CardStatus.ACTIVE)),
+    REQUEST_UNBLOCK(CardStatus.PENDING_UNBLOCK, EnumSet.of(CardStatus.BLOCKED)),
+    BLOCK(CardStatus.BLOCKED, EnumSet.of(CardStatus.ACTIVE, CardStatus.PENDING_BLOCK)),
+    UNBLOCK(CardStatus.ACTIVE, EnumSet.of(CardStatus.BLOCKED, CardStatus.PENDING_UNBLOCK)),
+    CANCEL(CardStatus.CANCELLED, EnumSet.complementOf(EnumSet.of(CardStatus.CANCELLED)));
+
+    private final CardStatus target;
+    private final Set<CardStatus> allowedFrom;
+
+    CardTransition(CardStatus target, Set<CardStatus> allowedFrom) {
+        this.target = target;
+        this.allowedFrom = allowedFrom;
+    }
+
+    public CardStatus getTarget() {
+        return target;
+    }
+
+    public Set<CardStatus> getAllowedFrom() {
+        return allowedFrom;
+    }
+
+    /**
+     * Check whether a card in the given status may take this transition.
+     * @param status The current status of the card.
+     * @return true if the transition is allowed.
+     */
+    public boolean isAllowedFrom(CardStatus status) {
+        return allowedFrom.contains(status);
+    }
+}
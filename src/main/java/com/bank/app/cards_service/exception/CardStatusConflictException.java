@@ -0,0 +1,10 @@
+package com.bank.app.cards_service.exception;
+
+/**
+ * Exception thrown when a card's current status does not allow the requested transition.
+ */
+public class CardStatusConflictException extends IllegalStateException {
+    public CardStatusConflictException(String message) {
+        super(message);
+    }
+}
@@ -48,4 +48,16 @@ public class GlobalExceptionHandler {
         logger.error("ResourceNotFoundException: ", ex);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Resource not found: " + ex.getMessage());
     }
-}
\ No newline at end of file
+
+    /**
+     * Handle CardStatusConflictException.
+     * @param ex The exception that was thrown.
+     * @param request The web request during which the exception was thrown.
+     * @return A response entity with an error message and HTTP status code 409.
+     */
+    @ExceptionHandler(CardStatusConflictException.class)
+    public ResponseEntity<String> handleCardStatusConflictException(CardStatusConflictException ex, WebRequest request) {
+        logger.error("CardStatusConflictException: ", ex);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Conflict: " + ex.getMessage());
+    }
+}
@@ -0,0 +1,36 @@
+package com.bank.app.cards_service.kafka;
+
+/**
+ * Encodings of card events on card-service-topic. Every record carries the {@link #HEADER} header
+ * naming the encoding and schema version of its value, so consumers can pick the matching decoder.
+ */
+public enum CardEventSchema {
+    JSON_V1("json/card-notification/v1"),
+    AVRO_V1("avro/card-notification/v1");
+
+    public static final String HEADER = "card-event-schema";
+
+    private final String id;
+
+    CardEventSchema(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Find the schema named in a record header.
+     * @param id The header value.
+     * @return The schema, or null if the value is unknown.
+     */
+    public static CardEventSchema fromId(String id) {
+        for (CardEventSchema schema : values()) {
+            if (schema.id.equals(id)) {
+                return schema;
+            }
+        }
+        return null;
+    }
+}
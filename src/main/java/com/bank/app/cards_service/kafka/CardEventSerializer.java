@@ -0,0 +1,57 @@
+package com.bank.app.cards_service.kafka;
+
+import com.bank.core.entity.CardNotification;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Value serializer for the card service producer. Card notifications are written in the encoding
+ * configured with {@link #FORMAT_CONFIG} ({@code json} or {@code avro}) and tagged with the
+ * {@link CardEventSchema#HEADER} header; any other value is written as JSON.
+ */
+public class CardEventSerializer implements Serializer<Object> {
+    public static final String FORMAT_CONFIG = "cards.event.format";
+
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+    private CardEventSchema schema = CardEventSchema.JSON_V1;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+        Object format = configs.get(FORMAT_CONFIG);
+        if (format != null) {
+            schema = switch (format.toString().toLowerCase()) {
+                case "json" -> CardEventSchema.JSON_V1;
+                case "avro" -> CardEventSchema.AVRO_V1;
+                default -> throw new IllegalArgumentException("Unknown card event format: " + format);
+            };
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (!(data instanceof CardNotification cardNotification)) {
+            return jsonSerializer.serialize(topic, headers, data);
+        }
+        headers.remove(CardEventSchema.HEADER);
+        headers.add(CardEventSchema.HEADER, schema.getId().getBytes(StandardCharsets.UTF_8));
+        if (schema == CardEventSchema.AVRO_V1) {
+            return CardNotificationAvroCodec.encode(cardNotification);
+        }
+        return jsonSerializer.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
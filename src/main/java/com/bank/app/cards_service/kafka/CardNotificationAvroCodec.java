@@ -0,0 +1,164 @@
+package com.bank.app.cards_service.kafka;
+
+import com.bank.core.entity.CardNotification;
+import com.bank.core.entity.CardStatus;
+import com.bank.core.entity.CardType;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+/**
+ * Avro binary encoding of card notifications, following avro/card-notification-v1.avsc.
+ * Fields are written and read in schema order with accessor calls, without building generic records.
+ * Any Avro reader with the schema can decode the output.
+ */
+public final class CardNotificationAvroCodec {
+
+    public static final Schema SCHEMA_V1 = parseSchema("/avro/card-notification-v1.avsc");
+
+    private static final int MONEY_SCALE = 2;
+    private static final int NULL = 0;
+    private static final int PRESENT = 1;
+    private static final ThreadLocal<EncodeBuffer> ENCODE_BUFFER = ThreadLocal.withInitial(EncodeBuffer::new);
+
+    private CardNotificationAvroCodec() {
+    }
+
+    /**
+     * Encode a notification.
+     * @param cardNotification The notification.
+     * @return The Avro binary encoding.
+     * @throws ArithmeticException if an amount has more than two decimal places.
+     */
+    public static byte[] encode(CardNotification cardNotification) {
+        EncodeBuffer buffer = ENCODE_BUFFER.get();
+        buffer.out.reset();
+        BinaryEncoder encoder = buffer.encoder = EncoderFactory.get().binaryEncoder(buffer.out, buffer.encoder);
+        try {
+            writeLong(encoder, cardNotification.getId());
+            writeString(encoder, cardNotification.getCardNumber());
+            writeString(encoder, cardNotification.getCardHolderName());
+            writeString(encoder, cardNotification.getCardType() == null ? null : cardNotification.getCardType().name());
+            writeMoney(encoder, cardNotification.getCreditLimit());
+            writeMoney(encoder, cardNotification.getAvailableLimit());
+            writeDate(encoder, cardNotification.getExpiryDate());
+            writeLong(encoder, cardNotification.getUserId());
+            writeString(encoder, cardNotification.getStatus() == null ? null : cardNotification.getStatus().name());
+            writeString(encoder, cardNotification.getMessage());
+            encoder.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.out.toByteArray();
+    }
+
+    /**
+     * Decode a notification.
+     * @param data The Avro binary encoding.
+     * @return The notification.
+     */
+    public static CardNotification decode(byte[] data) {
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(data, null);
+        CardNotification cardNotification = new CardNotification();
+        try {
+            cardNotification.setId(readLong(decoder));
+            cardNotification.setCardNumber(readString(decoder));
+            cardNotification.setCardHolderName(readString(decoder));
+            String cardType = readString(decoder);
+            cardNotification.setCardType(cardType == null ? null : CardType.valueOf(cardType));
+            cardNotification.setCreditLimit(readMoney(decoder));
+            cardNotification.setAvailableLimit(readMoney(decoder));
+            cardNotification.setExpiryDate(readDate(decoder));
+            cardNotification.setUserId(readLong(decoder));
+            String status = readString(decoder);
+            cardNotification.setStatus(status == null ? null : CardStatus.valueOf(status));
+            cardNotification.setMessage(readString(decoder));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return cardNotification;
+    }
+
+    private static void writeLong(Encoder encoder, Long value) throws IOException {
+        encoder.writeIndex(value == null ? NULL : PRESENT);
+        if (value != null) {
+            encoder.writeLong(value);
+        }
+    }
+
+    private static void writeString(Encoder encoder, String value) throws IOException {
+        encoder.writeIndex(value == null ? NULL : PRESENT);
+        if (value != null) {
+            encoder.writeString(value);
+        }
+    }
+
+    private static void writeMoney(Encoder encoder, BigDecimal value) throws IOException {
+        encoder.writeIndex(value == null ? NULL : PRESENT);
+        if (value != null) {
+            encoder.writeBytes(value.setScale(MONEY_SCALE, RoundingMode.UNNECESSARY).unscaledValue().toByteArray());
+        }
+    }
+
+    private static void writeDate(Encoder encoder, LocalDate value) throws IOException {
+        encoder.writeIndex(value == null ? NULL : PRESENT);
+        if (value != null) {
+            encoder.writeInt(Math.toIntExact(value.toEpochDay()));
+        }
+    }
+
+    private static Long readLong(Decoder decoder) throws IOException {
+        return decoder.readIndex() == NULL ? null : decoder.readLong();
+    }
+
+    private static String readString(Decoder decoder) throws IOException {
+        return decoder.readIndex() == NULL ? null : decoder.readString();
+    }
+
+    private static BigDecimal readMoney(Decoder decoder) throws IOException {
+        if (decoder.readIndex() == NULL) {
+            return null;
+        }
+        ByteBuffer bytes = decoder.readBytes(null);
+        byte[] unscaled = new byte[bytes.remaining()];
+        bytes.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), MONEY_SCALE);
+    }
+
+    private static LocalDate readDate(Decoder decoder) throws IOException {
+        return decoder.readIndex() == NULL ? null : LocalDate.ofEpochDay(decoder.readInt());
+    }
+
+    private static Schema parseSchema(String resource) {
+        try (InputStream in = CardNotificationAvroCodec.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Avro schema not found: " + resource);
+            }
+            return new Schema.Parser().parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Per-thread output buffer and encoder, reused across records.
+     */
+    private static final class EncodeBuffer {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        private BinaryEncoder encoder;
+    }
+}
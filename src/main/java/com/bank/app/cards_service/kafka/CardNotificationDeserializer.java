@@ -0,0 +1,49 @@
+package com.bank.app.cards_service.kafka;
+
+import com.bank.core.entity.CardNotification;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Value deserializer for consumers of card-service-topic. The decoder is chosen per record from the
+ * {@link CardEventSchema#HEADER} header, so consumers read JSON and Avro records alike while producers
+ * switch encodings. Records without the header are read as JSON.
+ */
+public class CardNotificationDeserializer implements Deserializer<CardNotification> {
+
+    private final JsonDeserializer<CardNotification> jsonDeserializer =
+            new JsonDeserializer<>(CardNotification.class, false);
+
+    @Override
+    public CardNotification deserialize(String topic, byte[] data) {
+        return jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public CardNotification deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        Header header = headers.lastHeader(CardEventSchema.HEADER);
+        CardEventSchema schema = header == null ? CardEventSchema.JSON_V1
+                : CardEventSchema.fromId(new String(header.value(), StandardCharsets.UTF_8));
+        if (schema == null) {
+            throw new SerializationException("Unknown card event schema: "
+                    + new String(header.value(), StandardCharsets.UTF_8));
+        }
+        return switch (schema) {
+            case JSON_V1 -> jsonDeserializer.deserialize(topic, data);
+            case AVRO_V1 -> CardNotificationAvroCodec.decode(data);
+        };
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,24 @@
+package com.bank.app.cards_service.repo;
+
+import com.bank.app.cards_service.entity.CardNumberBlock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CardNumberBlockRepository extends JpaRepository<CardNumberBlock, String> {
+
+    /**
+     * Lock and retrieve the block counter of a BIN.
+     * @param bin The BIN.
+     * @return The block counter, if one exists.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from CardNumberBlock b where b.bin = :bin")
+    Optional<CardNumberBlock> findForUpdate(@Param("bin") String bin);
+}
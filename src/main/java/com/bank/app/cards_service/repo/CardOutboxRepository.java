@@ -0,0 +1,46 @@
+package com.bank.app.cards_service.repo;
+
+import com.bank.app.cards_service.entity.CardOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CardOutboxRepository extends JpaRepository<CardOutboxEvent, Long> {
+
+    /**
+     * Retrieve the oldest pending outbox events that are not parked.
+     * @param pageable The maximum number of events to return.
+     * @return The oldest pending events, in insertion order.
+     */
+    List<CardOutboxEvent> findByParkedAtIsNullOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Count a permanent send failure against the given events.
+     * @param ids The IDs of the events.
+     * @return The number of events updated.
+     */
+    @Modifying
+    @Transactional
+    @Query("update CardOutboxEvent e set e.attempts = e.attempts + 1 where e.id in :ids")
+    int recordFailedAttempt(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Park the given events, so the relay no longer sends them.
+     * @param ids The IDs of the events.
+     * @param parkedAt When the events were parked.
+     * @return The number of events updated.
+     */
+    @Modifying
+    @Transactional
+    @Query("update CardOutboxEvent e set e.attempts = e.attempts + 1, e.parkedAt = :parkedAt where e.id in :ids")
+    int park(@Param("ids") Collection<Long> ids, @Param("parkedAt") LocalDateTime parkedAt);
+}
@@ -1,11 +1,27 @@
 package com.bank.app.cards_service.repo;
 
+import com.bank.app.cards_service.dto.CardExpiry;
+import com.bank.app.cards_service.dto.CardSummary;
 import com.bank.app.cards_service.entity.Card;
 import com.bank.core.entity.CardStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CardsRepository extends JpaRepository<Card, Long> {
@@ -15,8 +31,36 @@ public interface CardsRepository extends JpaRepository<Card, Long> {
      * @param userId The ID of the user whose cards are to be retrieved.
      * @return A list of cards belonging to the user.
      */
+    @Transactional(readOnly = true)
     List<Card> findByUserId(Long userId);
 
+    /**
+     * Retrieve the version of a card, without loading the card.
+     * @param id The ID of the card.
+     * @return The card's version, or empty if the card does not exist.
+     */
+    @Transactional(readOnly = true)
+    @Query("select c.version from Card c where c.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Retrieve the aggregate version of a user's cards: the number of cards plus the sum of their
+     * versions, matching {@link com.bank.app.cards_service.service.UserCardsCache#versionOf}.
+     * @param userId The ID of the user.
+     * @return The aggregate version, 0 if the user has no cards.
+     */
+    @Transactional(readOnly = true)
+    @Query("select count(c) + coalesce(sum(c.version), 0) from Card c where c.userId = :userId")
+    long findCardsVersionByUserId(@Param("userId") Long userId);
+
+    /**
+     * Retrieve which of the given card numbers are already used.
+     * @param cardNumbers The card numbers to look up.
+     * @return The card numbers that belong to existing cards.
+     */
+    @Query("select c.cardNumber from Card c where c.cardNumber in :cardNumbers")
+    List<String> findExistingCardNumbers(@Param("cardNumbers") Collection<String> cardNumbers);
+
     /**
      * Retrieve cards by status.
      * @param cardStatus The status of the cards to be retrieved.
@@ -25,9 +69,153 @@ public interface CardsRepository extends JpaRepository<Card, Long> {
     List<Card> findByStatus(CardStatus cardStatus);
 
     /**
-     * Retrieve cards that do not have the specified status.
-     * @param status The status to exclude from the results.
-     * @return A list of cards that do not have the specified status.
+     * Retrieve cards with one of the given statuses. Listing the statuses, rather than excluding
+     * one with {@code <>}, lets the lookup use idx_cards_status_expiry_date.
+     * @param statuses The statuses to include.
+     * @return A list of cards with one of the given statuses.
+     */
+    List<Card> findByStatusIn(Collection<CardStatus> statuses);
+
+    /**
+     * Retrieve summaries of a user's cards. The rows are read straight into DTOs, without
+     * instantiating or tracking entities.
+     * @param userId The ID of the user whose cards are to be retrieved.
+     * @return A list of card summaries belonging to the user, ordered by ID.
+     */
+    @Query("select new com.bank.app.cards_service.dto.CardSummary(c.id, c.cardNumber, c.cardType, c.status) " +
+            "from Card c where c.userId = :userId order by c.id")
+    List<CardSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    /**
+     * Retrieve summaries of the cards with one of the given statuses. The rows are read straight
+     * into DTOs, without instantiating or tracking entities.
+     * @param statuses The statuses to include.
+     * @return A list of card summaries, ordered by ID.
+     */
+    @Query("select new com.bank.app.cards_service.dto.CardSummary(c.id, c.cardNumber, c.cardType, c.status) " +
+            "from Card c where c.status in :statuses order by c.id")
+    List<CardSummary> findSummariesByStatusIn(@Param("statuses") Collection<CardStatus> statuses);
+
+    /**
+     * Lock and retrieve the next chunk of cards in an ID range that are still in the given status
+     * but whose expiry date is before the given date, ordered by ID.
+     * @param status The status the cards must currently have.
+     * @param date The date the expiry date must be before.
+     * @param afterId Only cards with an ID greater than this are returned (keyset cursor).
+     * @param endId Only cards with an ID lower than this are returned.
+     * @param pageable The maximum number of cards to return.
+     * @return The next chunk of cards, locked for update.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.status = :status and c.expiryDate < :date " +
+            "and c.id > :afterId and c.id < :endId order by c.id")
+    List<Card> findExpiringChunk(@Param("status") CardStatus status, @Param("date") LocalDate date,
+                                 @Param("afterId") Long afterId, @Param("endId") Long endId, Pageable pageable);
+
+    /**
+     * Lock and retrieve the given cards that are still in the given status but whose expiry date
+     * is before the given date, ordered by ID.
+     * @param ids The IDs of the cards to consider.
+     * @param status The status the cards must currently have.
+     * @param date The date the expiry date must be before.
+     * @return The matching cards, locked for update.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id in :ids and c.status = :status and c.expiryDate < :date order by c.id")
+    List<Card> findExpiringByIds(@Param("ids") Collection<Long> ids, @Param("status") CardStatus status,
+                                 @Param("date") LocalDate date);
+
+    /**
+     * Retrieve the IDs and expiry dates of the next page of cards in the given status, ordered by ID.
+     * @param status The status of the cards.
+     * @param afterId Only cards with an ID greater than this are returned (keyset cursor).
+     * @param pageable The maximum number of cards to return.
+     * @return The next page of card expiry dates.
+     */
+    @Query("select new com.bank.app.cards_service.dto.CardExpiry(c.id, c.expiryDate) from Card c " +
+            "where c.status = :status and c.id > :afterId order by c.id")
+    List<CardExpiry> findExpiriesByStatus(@Param("status") CardStatus status, @Param("afterId") Long afterId,
+                                          Pageable pageable);
+
+    /**
+     * Move the given cards from one status to another in a single statement.
+     * @param ids The IDs of the cards to update.
+     * @param from The status the cards must currently have.
+     * @param to The new status.
+     * @return The number of cards updated.
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("update Card c set c.status = :to, c.version = c.version + 1 where c.id in :ids and c.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("from") CardStatus from, @Param("to") CardStatus to);
+
+    /**
+     * Retrieve the highest card ID.
+     * @return The highest card ID, or null if there are no cards.
+     */
+    @Query("select max(c.id) from Card c")
+    Long findMaxId();
+
+    /**
+     * Retrieve the next page of cards with one of the given statuses, ordered by ID.
+     * @param statuses The statuses to include.
+     * @param afterId Only cards with an ID greater than this are returned (keyset cursor).
+     * @param pageable The maximum number of cards to return.
+     * @return The next page of cards.
+     */
+    @Query("select c from Card c where c.status in :statuses and c.id > :afterId order by c.id")
+    List<Card> findPageByStatusIn(@Param("statuses") Collection<CardStatus> statuses,
+                                  @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Stream all cards with one of the given statuses through a forward-only, read-only cursor.
+     * Must be consumed inside a transaction and closed afterwards. On MySQL the connection needs
+     * useCursorFetch=true for rows to be fetched in batches rather than all at once.
+     * @param statuses The statuses to include.
+     * @return A stream of matching cards, ordered by ID.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from Card c where c.status in :statuses order by c.id")
+    Stream<Card> streamByStatusIn(@Param("statuses") Collection<CardStatus> statuses);
+
+    /**
+     * Lock and retrieve the cards with the given IDs.
+     * @param ids The IDs of the cards to retrieve.
+     * @return The cards found, locked for update.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id in :ids")
+    List<Card> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Move the given cards to a new status in a single statement, if their current status allows it.
+     * @param ids The IDs of the cards to update.
+     * @param from The statuses the cards may currently have.
+     * @param to The new status.
+     * @return The number of cards updated.
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("update Card c set c.status = :to, c.version = c.version + 1 where c.id in :ids and c.status in :from")
+    int updateStatusIn(@Param("ids") Collection<Long> ids, @Param("from") Collection<CardStatus> from,
+                       @Param("to") CardStatus to);
+
+    /**
+     * Move one card to a new status in a single statement, if it still has the given version
+     * and its status allows the transition.
+     * @param id The ID of the card to update.
+     * @param version The version the card must currently have.
+     * @param from The statuses the card may currently have.
+     * @param to The new status.
+     * @return 1 if the card was updated, 0 if it does not exist or was changed in the meantime.
      */
-    List<Card> findByStatusNot(CardStatus status);
-}
\ No newline at end of file
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("update Card c set c.status = :to, c.version = c.version + 1 " +
+            "where c.id = :id and c.version = :version and c.status in :from")
+    int transition(@Param("id") Long id, @Param("version") Long version,
+                   @Param("from") Collection<CardStatus> from, @Param("to") CardStatus to);
+}
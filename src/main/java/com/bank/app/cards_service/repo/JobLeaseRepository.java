@@ -0,0 +1,42 @@
+package com.bank.app.cards_service.repo;
+
+import com.bank.app.cards_service.entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * Take over a lease if it has lapsed or is already held by the given owner.
+     * @param name The name of the lease.
+     * @param owner The identifier of the instance claiming the lease.
+     * @param now The current time.
+     * @param until The time until which the lease is held.
+     * @return The number of rows updated (1 if the lease was acquired, 0 otherwise).
+     */
+    @Modifying
+    @Transactional
+    @Query("update JobLease l set l.owner = :owner, l.leaseUntil = :until " +
+            "where l.name = :name and (l.leaseUntil < :now or l.owner = :owner)")
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner,
+                   @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    /**
+     * Release a lease held by the given owner.
+     * @param name The name of the lease.
+     * @param owner The identifier of the instance holding the lease.
+     * @param now The current time, written as the new lease end.
+     * @return The number of rows updated.
+     */
+    @Modifying
+    @Transactional
+    @Query("update JobLease l set l.leaseUntil = :now where l.name = :name and l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
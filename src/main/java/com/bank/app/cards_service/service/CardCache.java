@@ -0,0 +1,52 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.entity.Card;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * In-process near cache of cards keyed by card ID, bounded by size and time to live.
+ * Concurrent misses for the same ID share a single load.
+ */
+@Service
+public class CardCache {
+
+    private final Cache<Long, Card> cache;
+
+    public CardCache(MeterRegistry meterRegistry,
+                     @Value("${cards.cache.by-id.maximum-size:100000}") long maximumSize,
+                     @Value("${cards.cache.by-id.ttl-ms:60000}") long ttlMs) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "cards.by-id");
+    }
+
+    /**
+     * Get a card from the cache, loading it on a miss.
+     * @param cardId The ID of the card.
+     * @param loader Loads the card on a miss; may return null if the card does not exist.
+     * @return A copy of the cached card, or null if the card does not exist.
+     */
+    public Card get(Long cardId, Function<Long, Card> loader) {
+        Card card = cache.get(cardId, loader);
+        return card == null ? null : card.toBuilder().build();
+    }
+
+    /**
+     * Drop a card from the cache.
+     * @param cardId The ID of the card.
+     */
+    public void invalidate(Long cardId) {
+        cache.invalidate(cardId);
+    }
+}
@@ -0,0 +1,171 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.dto.CardInvalidationMessage;
+import com.bank.app.cards_service.dto.CardStatusEvent;
+import com.bank.app.cards_service.entity.Card;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps card caches coherent across replicas. Local caches are invalidated once a card change
+ * commits, and the invalidation is broadcast to the other replicas over Kafka. The broadcast is
+ * handed to a single sender thread through a bounded queue (cards.cache.invalidation.queue-size),
+ * so the committing request never waits on Kafka; when the queue is full the broadcast is dropped
+ * and counted in cards.cache.invalidation.dropped. Entries whose broadcast is dropped or lost
+ * still expire through the cache TTL. The broadcast also feeds the other
+ * replicas' card event streams. A single instance can turn the broadcast
+ * off with {@code cards.cache.invalidation.enabled=false}.
+ */
+@Service
+public class CardCacheInvalidator {
+    private static final Logger logger = LoggerFactory.getLogger(CardCacheInvalidator.class);
+    public static final String TOPIC = "card-cache-invalidation-topic";
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Autowired
+    private CardCache cardCache;
+
+    @Autowired
+    private UserCardsCache userCardsCache;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private CardEventHub cardEventHub;
+
+    @Autowired
+    @Qualifier("cacheInvalidationKafkaTemplate")
+    private KafkaTemplate<String, Object> template;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cards.cache.invalidation.enabled:true}")
+    private boolean invalidationEnabled;
+
+    @Value("${cards.cache.invalidation.queue-size:10000}")
+    private int queueSize;
+
+    private ThreadPoolExecutor sender;
+
+    /**
+     * Start the sender thread for invalidation broadcasts.
+     */
+    @PostConstruct
+    public void start() {
+        sender = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                new CustomizableThreadFactory("cards-cache-invalidation-"), (task, executor) -> {
+                    logger.debug("Cache invalidation queue is full, dropping broadcast");
+                    meterRegistry.counter("cards.cache.invalidation.dropped").increment();
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdown();
+    }
+
+    /**
+     * Invalidate a changed card locally, apply it to its user's cached card list
+     * and tell the other replicas about it.
+     * @param event The card change, delivered after its transaction committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardChanged(CardChangedEvent event) {
+        Card card = event.card();
+        readYourWrites.recordWrite(card.getId(), card.getUserId());
+        cardCache.invalidate(card.getId());
+        userCardsCache.apply(card);
+        if (!invalidationEnabled) {
+            return;
+        }
+        CardInvalidationMessage message = CardInvalidationMessage.builder()
+                .origin(instanceId)
+                .cardId(card.getId())
+                .userId(card.getUserId())
+                .status(card.getStatus())
+                .previousStatus(event.previousStatus())
+                .version(card.getVersion())
+                .build();
+        sender.execute(() -> broadcast(message));
+    }
+
+    /**
+     * Drop the cached card lists of the users who were issued cards and tell the other replicas
+     * with one broadcast per user rather than one per card. New cards are not in the card cache yet.
+     * @param event The issued cards, delivered after their transaction committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardsIssued(CardsIssuedEvent event) {
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (Card card : event.cards()) {
+            readYourWrites.recordWrite(card.getId(), card.getUserId());
+            userIds.add(card.getUserId());
+        }
+        for (Long userId : userIds) {
+            userCardsCache.evict(userId);
+            if (invalidationEnabled) {
+                CardInvalidationMessage message = CardInvalidationMessage.builder()
+                        .origin(instanceId)
+                        .userId(userId)
+                        .build();
+                sender.execute(() -> broadcast(message));
+            }
+        }
+    }
+
+    /**
+     * Invalidate a card changed by another replica and push the change to local stream subscribers.
+     * @param message The invalidation broadcast by the replica that changed the card.
+     */
+    @KafkaListener(topics = TOPIC,
+            groupId = "cards-service-cache-#{T(java.util.UUID).randomUUID()}",
+            containerFactory = "cardInvalidationListenerContainerFactory",
+            autoStartup = "${cards.cache.invalidation.enabled:true}")
+    public void onInvalidation(CardInvalidationMessage message) {
+        if (instanceId.equals(message.getOrigin())) {
+            return;
+        }
+        logger.debug("Invalidating card ID {} of user ID {} changed by another instance",
+                message.getCardId(), message.getUserId());
+        readYourWrites.recordWrite(message.getCardId(), message.getUserId());
+        if (message.getCardId() != null) {
+            cardCache.invalidate(message.getCardId());
+        }
+        userCardsCache.evict(message.getUserId());
+        if (message.getStatus() != null) {
+            cardEventHub.publish(new CardStatusEvent(message.getCardId(), message.getUserId(), message.getStatus(),
+                    message.getPreviousStatus(), message.getVersion()));
+        }
+    }
+
+    private void broadcast(CardInvalidationMessage message) {
+        try {
+            Long key = message.getCardId() != null ? message.getCardId() : message.getUserId();
+            template.send(TOPIC, String.valueOf(key), message);
+        } catch (RuntimeException e) {
+            logger.warn("Could not broadcast cache invalidation for card ID {} of user ID {}",
+                    message.getCardId(), message.getUserId(), e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.entity.Card;
+import com.bank.core.entity.CardStatus;
+
+/**
+ * Application event published whenever a card is issued or changes status.
+ * @param card The card as written by the change.
+ * @param previousStatus The status before the change, or null for a newly issued card.
+ */
+public record CardChangedEvent(Card card, CardStatus previousStatus) {
+}
@@ -0,0 +1,272 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.dto.CardStatusEvent;
+import com.bank.app.cards_service.entity.Card;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans committed card status changes out to server-sent event subscribers. Publishing never
+ * blocks: each subscriber has a bounded buffer drained by a small sender pool, and a subscriber
+ * whose buffer overflows because it does not read fast enough is disconnected. Clients reconnect
+ * and re-read the current state, as they would after any dropped connection.
+ * <p>
+ * Changes made on this instance arrive as {@link CardChangedEvent}s and {@link CardsIssuedEvent}s;
+ * changes made on other instances arrive through the cache invalidation broadcast, which carries
+ * status changes but not the individual cards of a bulk issue.
+ */
+@Service
+public class CardEventHub {
+    private static final Logger logger = LoggerFactory.getLogger(CardEventHub.class);
+    private static final String EVENT_NAME = "card-status";
+    private static final Object HEARTBEAT = new Object();
+
+    /** One connected client and the events waiting to be sent to it. */
+    private final class Subscription {
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final Long cardId;
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscription(SseEmitter emitter, Long userId, Long cardId) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.cardId = cardId;
+        }
+
+        private boolean accepts(CardStatusEvent event) {
+            return (userId == null || userId.equals(event.getUserId()))
+                    && (cardId == null || cardId.equals(event.getCardId()));
+        }
+    }
+
+    private final Set<Subscription> unfiltered = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Subscription>> byUser = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscription>> byCard = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Executor sender;
+    private final MeterRegistry meterRegistry;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    private final Counter sentCounter;
+
+    @Autowired
+    public CardEventHub(MeterRegistry meterRegistry,
+                        @Value("${cards.stream.buffer-size:1024}") int bufferSize,
+                        @Value("${cards.stream.max-subscribers:10000}") int maxSubscribers,
+                        @Value("${cards.stream.timeout-ms:1800000}") long timeoutMs,
+                        @Value("${cards.stream.sender-threads:4}") int senderThreads) {
+        this(meterRegistry, bufferSize, maxSubscribers, timeoutMs,
+                Executors.newFixedThreadPool(senderThreads, new CustomizableThreadFactory("cards-stream-")));
+    }
+
+    CardEventHub(MeterRegistry meterRegistry, int bufferSize, int maxSubscribers, long timeoutMs, Executor sender) {
+        this.meterRegistry = meterRegistry;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        this.sender = sender;
+        this.sentCounter = Counter.builder("cards.stream.sent")
+                .description("Card status events sent to stream subscribers")
+                .register(meterRegistry);
+        Gauge.builder("cards.stream.subscribers", subscribers, AtomicInteger::get)
+                .description("Connected card event stream subscribers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open a stream of card status changes.
+     * @param userId Only send changes to this user's cards, or null for any user.
+     * @param cardId Only send changes to this card, or null for any card.
+     * @return The emitter to return from the request handler.
+     * @throws IllegalStateException if the maximum number of subscribers is connected.
+     */
+    public SseEmitter subscribe(Long userId, Long cardId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new IllegalStateException("Too many card event stream subscribers");
+        }
+        Subscription subscription = new Subscription(new SseEmitter(timeoutMs), userId, cardId);
+        subscription.emitter.onCompletion(() -> remove(subscription));
+        subscription.emitter.onTimeout(subscription.emitter::complete);
+        subscription.emitter.onError(e -> remove(subscription));
+        if (cardId != null) {
+            addTo(byCard, cardId, subscription);
+        } else if (userId != null) {
+            addTo(byUser, userId, subscription);
+        } else {
+            unfiltered.add(subscription);
+        }
+        // Send a comment straight away, so the client sees the stream open before the first change.
+        offer(subscription, HEARTBEAT);
+        return subscription.emitter;
+    }
+
+    /**
+     * Push a change made on this instance, once it committed.
+     * @param event The card change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardChanged(CardChangedEvent event) {
+        Card card = event.card();
+        publish(new CardStatusEvent(card.getId(), card.getUserId(), card.getStatus(), event.previousStatus(),
+                card.getVersion()));
+    }
+
+    /**
+     * Push each card of a committed bulk issue to local subscribers.
+     * @param event The issued cards.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardsIssued(CardsIssuedEvent event) {
+        for (Card card : event.cards()) {
+            publish(new CardStatusEvent(card.getId(), card.getUserId(), card.getStatus(), null, card.getVersion()));
+        }
+    }
+
+    /**
+     * Push a change to every subscriber whose filter matches it.
+     * @param event The change.
+     */
+    public void publish(CardStatusEvent event) {
+        unfiltered.forEach(subscription -> offer(subscription, event));
+        if (event.getUserId() != null) {
+            byUser.getOrDefault(event.getUserId(), Set.of()).forEach(subscription -> offer(subscription, event));
+        }
+        if (event.getCardId() != null) {
+            byCard.getOrDefault(event.getCardId(), Set.of()).stream()
+                    .filter(subscription -> subscription.accepts(event))
+                    .forEach(subscription -> offer(subscription, event));
+        }
+    }
+
+    /**
+     * Send a comment to every subscriber, so idle connections are kept open by proxies and
+     * clients that went away are noticed.
+     */
+    @Scheduled(fixedDelayString = "${cards.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        unfiltered.forEach(subscription -> offer(subscription, HEARTBEAT));
+        byUser.values().forEach(subscriptions -> subscriptions.forEach(subscription -> offer(subscription, HEARTBEAT)));
+        byCard.values().forEach(subscriptions -> subscriptions.forEach(subscription -> offer(subscription, HEARTBEAT)));
+    }
+
+    @PreDestroy
+    public void close() {
+        if (sender instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void offer(Subscription subscription, Object item) {
+        if (subscription.closed.get()) {
+            return;
+        }
+        if (!subscription.queue.offer(item)) {
+            logger.debug("Dropping card event stream subscriber that fell {} events behind", bufferSize);
+            drop(subscription, "slow");
+            return;
+        }
+        if (subscription.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscription));
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        do {
+            try {
+                Object item;
+                while (!subscription.closed.get() && (item = subscription.queue.poll()) != null) {
+                    subscription.emitter.send(toSse(item));
+                    if (item != HEARTBEAT) {
+                        sentCounter.increment();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                drop(subscription, "disconnected");
+                return;
+            } finally {
+                subscription.draining.set(false);
+            }
+            // An item offered after the last poll but before draining was reset has no drain scheduled.
+        } while (!subscription.queue.isEmpty() && !subscription.closed.get()
+                && subscription.draining.compareAndSet(false, true));
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(Object item) {
+        if (item == HEARTBEAT) {
+            return SseEmitter.event().comment("keepalive");
+        }
+        CardStatusEvent event = (CardStatusEvent) item;
+        return SseEmitter.event()
+                .name(EVENT_NAME)
+                .id(event.getCardId() + ":" + event.getVersion())
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private void drop(Subscription subscription, String reason) {
+        if (remove(subscription)) {
+            meterRegistry.counter("cards.stream.dropped", "reason", reason).increment();
+            // Completing waits for a send in progress, so it must not run on the publishing thread.
+            sender.execute(subscription.emitter::complete);
+        }
+    }
+
+    private boolean remove(Subscription subscription) {
+        if (!subscription.closed.compareAndSet(false, true)) {
+            return false;
+        }
+        if (subscription.cardId != null) {
+            removeFrom(byCard, subscription.cardId, subscription);
+        } else if (subscription.userId != null) {
+            removeFrom(byUser, subscription.userId, subscription);
+        } else {
+            unfiltered.remove(subscription);
+        }
+        subscription.queue.clear();
+        subscribers.decrementAndGet();
+        return true;
+    }
+
+    private static void addTo(Map<Long, Set<Subscription>> index, Long key, Subscription subscription) {
+        index.compute(key, (id, subscriptions) -> {
+            Set<Subscription> updated = subscriptions == null ? ConcurrentHashMap.newKeySet() : subscriptions;
+            updated.add(subscription);
+            return updated;
+        });
+    }
+
+    private static void removeFrom(Map<Long, Set<Subscription>> index, Long key, Subscription subscription) {
+        index.computeIfPresent(key, (id, subscriptions) -> {
+            subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+    }
+}
@@ -1,32 +1,96 @@
 package com.bank.app.cards_service.service;
 
 import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.entity.CardOutboxEvent;
+import com.bank.app.cards_service.repo.CardOutboxRepository;
 import com.bank.core.entity.CardNotification;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Records card events in the outbox table. Events are written in the caller's transaction,
+ * so they are committed together with the card change, and are sent to Kafka later by
+ * {@link CardOutboxRelay}.
+ */
 @Service
+@Transactional(propagation = Propagation.MANDATORY)
 public class CardEventPublisher {
     private static final Logger logger = LoggerFactory.getLogger(CardEventPublisher.class);
-    private static final String TOPIC = "card-service-topic";
+    private static final String ISSUED = "Card Issued";
+    private static final String BLOCKED = "Card Blocked";
+    private static final String UNBLOCKED = "Card Unblocked";
+    private static final String ACTIVATED = "Card Activated";
+
+    @Autowired
+    private CardOutboxRepository cardOutboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     @Autowired
-    private KafkaTemplate<String, Object> template;
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     /**
      * Send a message indicating that a card has been issued.
      * @param card The card that was issued.
      */
     public void sendIssueCardMessage(Card card) {
-        logger.info("Sending issue card message for card number: {}", card.getCardNumber());
-        CardNotification cardNotification = new CardNotification();
-        BeanUtils.copyProperties(card, cardNotification);
-        template.send(TOPIC, "Card Issued", cardNotification);
-        logger.info("Issue card message sent successfully for card number: {}", card.getCardNumber());
+        logger.info("Queueing issue card message for card number: {}", card.getCardNumber());
+        enqueue(card, ISSUED, CardNotificationMapper.toNotification(card, null));
+        logger.info("Issue card message queued for card number: {}", card.getCardNumber());
+    }
+
+    /**
+     * Send messages indicating that cards have been issued, inserting them into the outbox as
+     * one JDBC batch.
+     * @param cards The cards that were issued, already flushed to the database.
+     */
+    public void sendIssueCardMessages(List<Card> cards) {
+        enqueueAll(cards, ISSUED, card -> CardNotificationMapper.toNotification(card, null));
+    }
+
+    /**
+     * Send messages indicating that cards have been blocked, inserting them into the outbox as
+     * one JDBC batch.
+     * @param cards The cards that were blocked.
+     */
+    public void sendCardBlockMessages(List<Card> cards) {
+        enqueueAll(cards, BLOCKED, card -> CardNotificationMapper.toNotification(card, "Card block Successfully"));
+    }
+
+    /**
+     * Send messages indicating that cards have been unblocked, inserting them into the outbox as
+     * one JDBC batch.
+     * @param cards The cards that were unblocked.
+     */
+    public void sendCardUnblockMessages(List<Card> cards) {
+        enqueueAll(cards, UNBLOCKED, card -> CardNotificationMapper.toNotification(card, "Card Unblock Successfully"));
+    }
+
+    /**
+     * Send messages indicating that cards have been activated, inserting them into the outbox as
+     * one JDBC batch.
+     * @param cards The cards that were activated.
+     */
+    public void sendCardActivateMessages(List<Card> cards) {
+        enqueueAll(cards, ACTIVATED, card -> CardNotificationMapper.toNotification(card, "Card Activated"));
     }
 
     /**
@@ -34,12 +98,9 @@ public class CardEventPublisher {
      * @param card The card that was blocked.
      */
     public void sendCardBlockMessage(Card card) {
-        logger.info("Sending block card message for card number: {}", card.getCardNumber());
-        CardNotification cardNotification = new CardNotification();
-        BeanUtils.copyProperties(card, cardNotification);
-        cardNotification.setMessage("Card block Successfully");
-        template.send(TOPIC, "Card Blocked", cardNotification);
-        logger.info("Block card message sent successfully for card number: {}", card.getCardNumber());
+        logger.info("Queueing block card message for card number: {}", card.getCardNumber());
+        enqueue(card, BLOCKED, CardNotificationMapper.toNotification(card, "Card block Successfully"));
+        logger.info("Block card message queued for card number: {}", card.getCardNumber());
     }
 
     /**
@@ -47,12 +108,9 @@ public class CardEventPublisher {
      * @param card The card that was unblocked.
      */
     public void sendCardUnblockMessage(Card card) {
-        logger.info("Sending unblock card message for card number: {}", card.getCardNumber());
-        CardNotification cardNotification = new CardNotification();
-        BeanUtils.copyProperties(card, cardNotification);
-        cardNotification.setMessage("Card Unblock Successfully");
-        template.send(TOPIC, "Card Unblocked", cardNotification);
-        logger.info("Unblock card message sent successfully for card number: {}", card.getCardNumber());
+        logger.info("Queueing unblock card message for card number: {}", card.getCardNumber());
+        enqueue(card, UNBLOCKED, CardNotificationMapper.toNotification(card, "Card Unblock Successfully"));
+        logger.info("Unblock card message queued for card number: {}", card.getCardNumber());
     }
 
     /**
@@ -60,12 +118,9 @@ public class CardEventPublisher {
      * @param card The card that expired.
      */
     public void sendCardExpireMessage(Card card) {
-        logger.info("Sending expire card message for card number: {}", card.getCardNumber());
-        CardNotification cardNotification = new CardNotification();
-        BeanUtils.copyProperties(card, cardNotification);
-        cardNotification.setMessage("Card Expired");
-        template.send(TOPIC, "Card Expired", cardNotification);
-        logger.info("Expire card message sent successfully for card number: {}", card.getCardNumber());
+        logger.info("Queueing expire card message for card number: {}", card.getCardNumber());
+        enqueue(card, "Card Expired", CardNotificationMapper.toNotification(card, "Card Expired"));
+        logger.info("Expire card message queued for card number: {}", card.getCardNumber());
     }
 
     /**
@@ -73,11 +128,54 @@ public class CardEventPublisher {
      * @param card The card that was activated.
      */
     public void sendCardActivateMessage(Card card) {
-        logger.info("Sending activate card message for card number: {}", card.getCardNumber());
-        CardNotification cardNotification = new CardNotification();
-        BeanUtils.copyProperties(card, cardNotification);
-        cardNotification.setMessage("Card Activated");
-        template.send(TOPIC, "Card Activated", cardNotification);
-        logger.info("Activate card message sent successfully for card number: {}", card.getCardNumber());
+        logger.info("Queueing activate card message for card number: {}", card.getCardNumber());
+        enqueue(card, ACTIVATED, CardNotificationMapper.toNotification(card, "Card Activated"));
+        logger.info("Activate card message queued for card number: {}", card.getCardNumber());
+    }
+
+    /**
+     * Write an event to the outbox.
+     * @param card The card the event is about.
+     * @param eventType The event type, sent as a record header.
+     * @param cardNotification The notification to be sent.
+     */
+    private void enqueue(Card card, String eventType, CardNotification cardNotification) {
+        cardOutboxRepository.save(CardOutboxEvent.builder()
+                .cardId(card.getId())
+                .eventType(eventType)
+                .payload(serialize(card, cardNotification))
+                .createdAt(LocalDateTime.now())
+                .build());
+        meterRegistry.counter("cards.outbox.enqueued", "event.type", eventType).increment();
+    }
+
+    /**
+     * Write events of one type for many cards to the outbox as one JDBC batch. The outbox IDs are
+     * AUTO_INCREMENT, which Hibernate cannot batch, so the rows are inserted with JDBC directly.
+     * @param cards The cards the events are about.
+     * @param eventType The event type, sent as a record header.
+     * @param notification Builds the notification to be sent for a card.
+     */
+    private void enqueueAll(List<Card> cards, String eventType, Function<Card, CardNotification> notification) {
+        if (cards.isEmpty()) {
+            return;
+        }
+        logger.info("Queueing {} messages for {} cards", eventType, cards.size());
+        List<Object[]> rows = new ArrayList<>(cards.size());
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        for (Card card : cards) {
+            rows.add(new Object[]{card.getId(), eventType, serialize(card, notification.apply(card)), createdAt});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO card_outbox (card_id, event_type, payload, created_at) VALUES (?, ?, ?, ?)", rows);
+        meterRegistry.counter("cards.outbox.enqueued", "event.type", eventType).increment(cards.size());
+    }
+
+    private String serialize(Card card, CardNotification cardNotification) {
+        try {
+            return objectMapper.writeValueAsString(cardNotification);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize card notification for card ID: " + card.getId(), e);
+        }
     }
 }
\ No newline at end of file
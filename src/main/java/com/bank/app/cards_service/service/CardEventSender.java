@@ -0,0 +1,107 @@
+package com.bank.app.cards_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends card events to Kafka asynchronously. The number of sends awaiting a broker acknowledgement
+ * is capped, so callers block (backpressure) instead of piling records up in the producer buffer.
+ * Failed sends are not retried here: the idempotent producer retries them itself until
+ * {@code delivery.timeout.ms}, in order, and a send retried after newer records of the same card
+ * would deliver them out of order.
+ * <p>
+ * Records are keyed by card ID, so all events of a card go to the same partition in order, and
+ * carry the event type in the {@value #EVENT_TYPE_HEADER} header.
+ */
+@Service
+public class CardEventSender {
+    private static final Logger logger = LoggerFactory.getLogger(CardEventSender.class);
+    public static final String TOPIC = "card-service-topic";
+    public static final String EVENT_TYPE_HEADER = "card-event-type";
+
+    /** The send meters of one event type, registered on its first send and reused after. */
+    private record SendMeters(Timer success, Timer failure, Counter failed) {
+    }
+
+    private final KafkaTemplate<String, Object> template;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore inFlight;
+    private final Map<String, SendMeters> sendMeters = new ConcurrentHashMap<>();
+
+    public CardEventSender(KafkaTemplate<String, Object> template, MeterRegistry meterRegistry,
+                           @Value("${cards.kafka.publish.max-in-flight:1000}") int maxInFlight) {
+        this.template = template;
+        this.meterRegistry = meterRegistry;
+        this.inFlight = new Semaphore(maxInFlight);
+        Gauge.builder("cards.kafka.publish.in-flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+                .description("Card events sent to Kafka and awaiting acknowledgement")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Send an event to the card topic, blocking while the in-flight limit is reached.
+     * @param eventType The event type, sent as a header.
+     * @param cardId The ID of the card the event is about, used as the record key.
+     * @param value The event payload.
+     * @return A future completed once the broker acknowledged the record, or failed once the producer gave up.
+     * @throws InterruptedException if interrupted while waiting for an in-flight slot.
+     */
+    public CompletableFuture<SendResult<String, Object>> send(String eventType, Long cardId, Object value)
+            throws InterruptedException {
+        inFlight.acquire();
+        long started = System.nanoTime();
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            ProducerRecord<String, Object> record = new ProducerRecord<>(TOPIC, String.valueOf(cardId), value);
+            record.headers().add(EVENT_TYPE_HEADER, eventType.getBytes(StandardCharsets.UTF_8));
+            future = template.send(record);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        SendMeters meters = sendMeters.computeIfAbsent(eventType, this::sendMeters);
+        return future.whenComplete((sendResult, ex) -> {
+            inFlight.release();
+            long elapsed = System.nanoTime() - started;
+            if (ex == null) {
+                meters.success().record(elapsed, TimeUnit.NANOSECONDS);
+            } else {
+                meters.failure().record(elapsed, TimeUnit.NANOSECONDS);
+                logger.error("Send of {} event for card ID {} failed", eventType, cardId, ex);
+                meters.failed().increment();
+            }
+        });
+    }
+
+    private SendMeters sendMeters(String eventType) {
+        return new SendMeters(sendTimer(eventType, "success"), sendTimer(eventType, "failure"),
+                Counter.builder("cards.kafka.publish.failed")
+                        .description("Card events the producer could not deliver within its delivery timeout")
+                        .tag("event.type", eventType)
+                        .register(meterRegistry));
+    }
+
+    private Timer sendTimer(String eventType, String outcome) {
+        return Timer.builder("cards.kafka.publish")
+                .description("Latency of card event sends to Kafka")
+                .tag("event.type", eventType)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,189 @@
+package com.bank.app.cards_service.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * In-memory index of active cards by expiry date. Card IDs are kept as primitive longs in a hash
+ * set per expiry day, so the cards due on a given day can be taken out without scanning the
+ * others, a card is held at most once per day however often it becomes active again, and a card
+ * that leaves ACTIVE is removed from its day.
+ * <p>
+ * Cards that leave ACTIVE on another replica are not removed here; the expiry update only touches
+ * cards that are still active and due, so such stale IDs are simply dropped when their day comes.
+ */
+@Service
+public class CardExpiryIndex {
+    private static final int INITIAL_BUCKET_SIZE = 16;
+
+    /**
+     * Card IDs expiring on one day: an open-addressing hash set of longs with linear probing,
+     * at most half full. Card IDs are positive, so 0 marks an empty slot.
+     */
+    private static final class Bucket {
+        private long[] slots = new long[INITIAL_BUCKET_SIZE];
+        private int size;
+
+        private boolean add(long id) {
+            if ((size + 1) * 2 > slots.length) {
+                long[] old = slots;
+                slots = new long[old.length * 2];
+                for (long existing : old) {
+                    if (existing != 0) {
+                        slots[probe(existing)] = existing;
+                    }
+                }
+            }
+            int slot = probe(id);
+            if (slots[slot] == id) {
+                return false;
+            }
+            slots[slot] = id;
+            size++;
+            return true;
+        }
+
+        private boolean remove(long id) {
+            int hole = probe(id);
+            if (slots[hole] != id) {
+                return false;
+            }
+            // Shift later entries of the probe run back into the hole, so lookups need no tombstones.
+            int mask = slots.length - 1;
+            for (int i = (hole + 1) & mask; slots[i] != 0; i = (i + 1) & mask) {
+                int home = home(slots[i]);
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    slots[hole] = slots[i];
+                    hole = i;
+                }
+            }
+            slots[hole] = 0;
+            size--;
+            return true;
+        }
+
+        private int copyTo(long[] ids, int offset) {
+            for (long id : slots) {
+                if (id != 0) {
+                    ids[offset++] = id;
+                }
+            }
+            return offset;
+        }
+
+        /** The slot holding the ID, or the empty slot where it would go. */
+        private int probe(long id) {
+            int mask = slots.length - 1;
+            int slot = home(id);
+            while (slots[slot] != 0 && slots[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private int home(long id) {
+            long hash = id * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & (slots.length - 1);
+        }
+    }
+
+    private final NavigableMap<Long, Bucket> buckets = new TreeMap<>();
+    private long size;
+
+    public CardExpiryIndex(MeterRegistry meterRegistry) {
+        Gauge.builder("cards.expiry.index.size", this, CardExpiryIndex::size)
+                .description("Card IDs held in the expiry index")
+                .register(meterRegistry);
+        Gauge.builder("cards.expiry.index.days", this, CardExpiryIndex::days)
+                .description("Distinct expiry dates held in the expiry index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Add an active card to the index, unless it is already in it.
+     * @param cardId The ID of the card.
+     * @param expiryDate The card's expiry date; it is due the day after.
+     */
+    public synchronized void add(long cardId, LocalDate expiryDate) {
+        if (cardId <= 0) {
+            throw new IllegalArgumentException("Card ID must be positive: " + cardId);
+        }
+        if (buckets.computeIfAbsent(expiryDate.toEpochDay(), day -> new Bucket()).add(cardId)) {
+            size++;
+        }
+    }
+
+    /**
+     * Remove a card that is no longer active from the index.
+     * @param cardId The ID of the card.
+     * @param expiryDate The card's expiry date, under which it was added.
+     */
+    public synchronized void remove(long cardId, LocalDate expiryDate) {
+        long day = expiryDate.toEpochDay();
+        Bucket bucket = buckets.get(day);
+        if (bucket != null && bucket.remove(cardId)) {
+            size--;
+            if (bucket.size == 0) {
+                buckets.remove(day);
+            }
+        }
+    }
+
+    /**
+     * Remove and return the cards whose expiry date is before the given date.
+     * @param today The current date.
+     * @return The IDs of the due cards, sorted and without duplicates.
+     */
+    public synchronized long[] pollDue(LocalDate today) {
+        Map<Long, Bucket> due = buckets.headMap(today.toEpochDay(), false);
+        if (due.isEmpty()) {
+            return new long[0];
+        }
+        int count = 0;
+        for (Bucket bucket : due.values()) {
+            count += bucket.size;
+        }
+        long[] ids = new long[count];
+        int offset = 0;
+        for (Bucket bucket : due.values()) {
+            offset = bucket.copyTo(ids, offset);
+        }
+        due.clear();
+        size -= count;
+        return distinct(ids);
+    }
+
+    /**
+     * Get the earliest expiry date in the index.
+     * @return The earliest expiry date, or null if the index is empty.
+     */
+    public synchronized LocalDate earliestExpiryDate() {
+        return buckets.isEmpty() ? null : LocalDate.ofEpochDay(buckets.firstKey());
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    private synchronized int days() {
+        return buckets.size();
+    }
+
+    private static long[] distinct(long[] ids) {
+        Arrays.sort(ids);
+        int unique = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (unique == 0 || ids[i] != ids[unique - 1]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return unique == ids.length ? ids : Arrays.copyOf(ids, unique);
+    }
+}
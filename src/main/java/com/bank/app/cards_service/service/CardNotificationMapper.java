@@ -0,0 +1,35 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.entity.Card;
+import com.bank.core.entity.CardNotification;
+
+/**
+ * Maps cards to the notifications sent for card events, with plain accessor calls instead of
+ * reflective property copying. CardNotificationMapperTest checks that every notification field is mapped.
+ */
+public final class CardNotificationMapper {
+
+    private CardNotificationMapper() {
+    }
+
+    /**
+     * Create the notification for a card event.
+     * @param card The card the event is about.
+     * @param message The message of the event, or null for none.
+     * @return The notification.
+     */
+    public static CardNotification toNotification(Card card, String message) {
+        CardNotification cardNotification = new CardNotification();
+        cardNotification.setId(card.getId());
+        cardNotification.setCardNumber(card.getCardNumber());
+        cardNotification.setCardHolderName(card.getCardHolderName());
+        cardNotification.setCardType(card.getCardType());
+        cardNotification.setCreditLimit(card.getCreditLimit());
+        cardNotification.setAvailableLimit(card.getAvailableLimit());
+        cardNotification.setExpiryDate(card.getExpiryDate());
+        cardNotification.setUserId(card.getUserId());
+        cardNotification.setStatus(card.getStatus());
+        cardNotification.setMessage(message);
+        return cardNotification;
+    }
+}
@@ -0,0 +1,51 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.entity.CardNumberBlock;
+import com.bank.app.cards_service.repo.CardNumberBlockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reserves card number blocks per BIN in the database. Every reservation commits in its own
+ * transaction, so a rolled-back card issuance never hands the same block out twice.
+ */
+@Service
+public class CardNumberBlockAllocator {
+
+    @Autowired
+    private CardNumberBlockRepository cardNumberBlockRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public CardNumberBlockAllocator(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Reserve the next block of a BIN.
+     * @param bin The BIN.
+     * @return The index of the reserved block.
+     */
+    public long allocate(String bin) {
+        try {
+            return transactionTemplate.execute(status -> reserve(bin));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the counter row first; it exists now, so retry once.
+            return transactionTemplate.execute(status -> reserve(bin));
+        }
+    }
+
+    private long reserve(String bin) {
+        CardNumberBlock block = cardNumberBlockRepository.findForUpdate(bin)
+                .orElseGet(() -> new CardNumberBlock(bin, 0L));
+        long reserved = block.getNextBlock();
+        block.setNextBlock(reserved + 1);
+        cardNumberBlockRepository.saveAndFlush(block);
+        return reserved;
+    }
+}
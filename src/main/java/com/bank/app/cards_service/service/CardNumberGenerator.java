@@ -0,0 +1,16 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.core.entity.CardType;
+
+/**
+ * Generates card numbers (PANs) for newly issued cards.
+ */
+public interface CardNumberGenerator {
+
+    /**
+     * Generate a new, unique card number.
+     * @param cardType The type of the card, which selects the BIN.
+     * @return A Luhn-valid card number.
+     */
+    String generate(CardType cardType);
+}
@@ -0,0 +1,75 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.exception.CardNotFoundException;
+import com.bank.app.cards_service.exception.CardStatusConflictException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every {@link CardsService} operation as {@code cards.operation}, tagged with the operation
+ * name, its outcome and the type of the card involved ({@code none} for list operations and for
+ * failures before the card was loaded). The timer count doubles as the operation counter.
+ */
+@Aspect
+@Component
+public class CardOperationMetrics {
+    static final String METRIC = "cards.operation";
+
+    private final MeterRegistry meterRegistry;
+
+    public CardOperationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Time a card service call.
+     * @param joinPoint The service call.
+     * @return The result of the call.
+     * @throws Throwable whatever the call throws.
+     */
+    @Around("execution(* com.bank.app.cards_service.service.CardsService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long started = System.nanoTime();
+        Object result = null;
+        String outcome = "error";
+        try {
+            result = joinPoint.proceed();
+            outcome = "success";
+            return result;
+        } catch (CardNotFoundException e) {
+            outcome = "not_found";
+            throw e;
+        } catch (CardStatusConflictException e) {
+            outcome = "conflict";
+            throw e;
+        } finally {
+            Timer.builder(METRIC)
+                    .description("Latency of card service operations")
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .tag("card.type", cardType(result, joinPoint.getArgs()))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String cardType(Object result, Object[] args) {
+        if (result instanceof Card card && card.getCardType() != null) {
+            return card.getCardType().name();
+        }
+        for (Object arg : args) {
+            if (arg instanceof Card card && card.getCardType() != null) {
+                return card.getCardType().name();
+            }
+        }
+        return "none";
+    }
+}
@@ -0,0 +1,255 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.entity.CardOutboxEvent;
+import com.bank.app.cards_service.repo.CardOutboxRepository;
+import com.bank.core.entity.CardNotification;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the card outbox to Kafka in batches. Only the instance holding the relay lease
+ * sends, and the lease is renewed before every batch and while waiting for acknowledgements,
+ * so a long drain is not taken over by another instance. If the lease is lost, the batch is
+ * abandoned without deleting anything. Rows are deleted once the broker has acknowledged them,
+ * except the rows after a failed row of the same card: those stay in the outbox and are sent
+ * again after it, so the events of a card are never delivered out of order, while other cards
+ * keep flowing. A row that fails permanently (its payload cannot be read, or the broker rejects
+ * the record) is parked after cards.outbox.max-attempts, so it stops holding its card back.
+ */
+@Service
+public class CardOutboxRelay {
+    private static final Logger logger = LoggerFactory.getLogger(CardOutboxRelay.class);
+    private static final String LEASE = "card-outbox-relay";
+
+    @Autowired
+    private CardOutboxRepository cardOutboxRepository;
+
+    @Autowired
+    private CardEventSender cardEventSender;
+
+    @Autowired
+    private JobLeaseManager jobLeaseManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${cards.outbox.batch-size:500}")
+    private int batchSize;
+
+    // Must cover the producer's delivery timeout, or rows still being retried by the producer are sent again.
+    @Value("${cards.outbox.send-timeout-ms:130000}")
+    private long sendTimeoutMs;
+
+    @Value("${cards.kafka.producer.delivery-timeout-ms:120000}")
+    private long deliveryTimeoutMs;
+
+    @Value("${cards.outbox.lease-ttl-ms:30000}")
+    private long leaseTtlMs;
+
+    @Value("${cards.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter relayedCounter;
+    private final Counter failedCounter;
+    private final Counter parkedCounter;
+
+    public CardOutboxRelay(MeterRegistry meterRegistry) {
+        Gauge.builder("cards.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age of the oldest card event waiting in the outbox")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.relayedCounter = Counter.builder("cards.outbox.relayed")
+                .description("Card events relayed from the outbox to Kafka")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("cards.outbox.failed")
+                .description("Card events that could not be relayed and were kept for retry")
+                .register(meterRegistry);
+        this.parkedCounter = Counter.builder("cards.outbox.parked")
+                .description("Card events parked after failing permanently too often")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check that the relay waits for sends at least as long as the producer keeps retrying them.
+     */
+    @PostConstruct
+    void checkSendTimeout() {
+        if (sendTimeoutMs < deliveryTimeoutMs) {
+            throw new IllegalStateException("cards.outbox.send-timeout-ms (" + sendTimeoutMs
+                    + ") must not be shorter than cards.kafka.producer.delivery-timeout-ms (" + deliveryTimeoutMs + ")");
+        }
+    }
+
+    /**
+     * Scheduled task that relays pending outbox events until the outbox is drained.
+     */
+    @Scheduled(fixedDelayString = "${cards.outbox.poll-interval-ms:200}")
+    public void relay() {
+        int relayed;
+        do {
+            if (!renewLease()) {
+                return;
+            }
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+
+    /**
+     * Send one batch of outbox events and delete the ones the broker acknowledged, holding back
+     * the rows after a failed row of the same card.
+     * @return The number of events relayed.
+     */
+    int relayBatch() {
+        List<CardOutboxEvent> batch =
+                cardOutboxRepository.findByParkedAtIsNullOrderByIdAsc(PageRequest.ofSize(batchSize));
+        if (batch.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        lagMillis.set(Math.max(0, Duration.between(batch.get(0).getCreatedAt(), LocalDateTime.now()).toMillis()));
+
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(batch.size());
+        for (CardOutboxEvent event : batch) {
+            try {
+                futures.add(send(event));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        List<Long> acknowledged = new ArrayList<>(batch.size());
+        List<Long> failedAttempts = new ArrayList<>();
+        List<Long> parked = new ArrayList<>();
+        Set<Long> heldBackCards = new HashSet<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (int i = 0; i < batch.size(); i++) {
+            CardOutboxEvent event = batch.get(i);
+            try {
+                if (!await(futures.get(i), deadline)) {
+                    logger.warn("Lost the outbox relay lease while waiting for Kafka acknowledgements, "
+                            + "leaving the batch in the outbox");
+                    return 0;
+                }
+                if (!heldBackCards.contains(event.getCardId())) {
+                    acknowledged.add(event.getId());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                if (heldBackCards.add(event.getCardId())) {
+                    logger.error("Failed to relay outbox event {} for card ID: {}, "
+                            + "keeping it and the card's later events", event.getId(), event.getCardId(), e);
+                }
+                if (isPermanent(e) && event.getAttempts() + 1 >= maxAttempts) {
+                    parked.add(event.getId());
+                } else if (isPermanent(e)) {
+                    failedAttempts.add(event.getId());
+                }
+            }
+        }
+
+        if (!renewLease()) {
+            logger.warn("Lost the outbox relay lease before deleting relayed events, leaving the batch in the outbox");
+            return 0;
+        }
+        if (!acknowledged.isEmpty()) {
+            cardOutboxRepository.deleteAllByIdInBatch(acknowledged);
+        }
+        if (!failedAttempts.isEmpty()) {
+            cardOutboxRepository.recordFailedAttempt(failedAttempts);
+        }
+        if (!parked.isEmpty()) {
+            logger.error("Parking outbox events {} after {} permanent failures", parked, maxAttempts);
+            cardOutboxRepository.park(parked, LocalDateTime.now());
+        }
+        relayedCounter.increment(acknowledged.size());
+        failedCounter.increment(batch.size() - acknowledged.size());
+        parkedCounter.increment(parked.size());
+        logger.debug("Relayed {} of {} outbox events", acknowledged.size(), batch.size());
+        return acknowledged.size() == batch.size() ? batch.size() : 0;
+    }
+
+    /**
+     * Wait for a send to be acknowledged, renewing the relay lease while waiting.
+     * @param future The pending send.
+     * @param deadline When to stop waiting, as a System.nanoTime() value.
+     * @return true once the send is acknowledged, false if the relay lease was lost while waiting.
+     */
+    private boolean await(CompletableFuture<SendResult<String, Object>> future, long deadline)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long renewalInterval = TimeUnit.MILLISECONDS.toNanos(leaseTtlMs) / 3;
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            try {
+                future.get(Math.max(0, Math.min(remaining, renewalInterval)), TimeUnit.NANOSECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                if (remaining <= renewalInterval) {
+                    throw e;
+                }
+                if (!renewLease()) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether a send failed because of the record itself, so sending it again cannot succeed.
+     * Broker and network failures are not counted: the row is simply sent again later.
+     * @param e The failure.
+     * @return true if the payload could not be read or the record was rejected.
+     */
+    private static boolean isPermanent(Exception e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof JsonProcessingException || cause instanceof SerializationException
+                    || cause instanceof RecordTooLargeException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean renewLease() {
+        return jobLeaseManager.tryAcquire(LEASE, Duration.ofMillis(leaseTtlMs));
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(CardOutboxEvent event) throws InterruptedException {
+        CardNotification cardNotification;
+        try {
+            cardNotification = objectMapper.readValue(event.getPayload(), CardNotification.class);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return cardEventSender.send(event.getEventType(), event.getCardId(), cardNotification);
+    }
+}
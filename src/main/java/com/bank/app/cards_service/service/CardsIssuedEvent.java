@@ -0,0 +1,13 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.entity.Card;
+
+import java.util.List;
+
+/**
+ * Application event published once when a list of cards is issued in one transaction, instead of
+ * a {@link CardChangedEvent} per card.
+ * @param cards The issued cards.
+ */
+public record CardsIssuedEvent(List<Card> cards) {
+}
@@ -1,13 +1,22 @@
 package com.bank.app.cards_service.service;
 
+import com.bank.app.cards_service.dto.BulkTransitionResult;
+import com.bank.app.cards_service.dto.CardPage;
+import com.bank.app.cards_service.dto.CardSummary;
 import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.entity.CardTransition;
 import com.bank.app.cards_service.exception.CardNotFoundException;
+import com.bank.core.entity.CardStatus;
 
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface CardsService {
     Card requestNewCard(Card card);
 
+    List<Card> issueCards(List<Card> cards);
+
     Card activateCard(Long cardId);
 
     Card requestBlockCard(Long cardId) throws CardNotFoundException;
@@ -20,9 +29,23 @@ public interface CardsService {
 
     List<Card> getCardsByUserId(Long userId);
 
+    List<CardSummary> getCardSummariesByUserId(Long userId);
+
     Card cancelCard(Long cardId);
 
+    List<BulkTransitionResult> bulkTransition(CardTransition transition, List<Long> cardIds);
+
     List<Card> getAllNonActiveCards();
 
+    List<CardSummary> getNonActiveCardSummaries();
+
+    CardPage getNonActiveCardsPage(Set<CardStatus> statuses, Long afterId, int limit);
+
+    void streamNonActiveCards(Set<CardStatus> statuses, Consumer<Card> consumer);
+
     Card getCardById(Long cardId);
+
+    Long getCardVersion(Long cardId);
+
+    Long getUserCardsVersion(Long userId);
 }
@@ -0,0 +1,174 @@
+package com.bank.app.cards_service.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expiring store of responses by caller and idempotency key, kept in the database so that a retry
+ * landing on another instance, or arriving after a restart, is still deduplicated. The first
+ * request with a key claims it and records its response; repeats of the same request get the
+ * recorded response, and repeats arriving while the first is still running wait for it. Keys are
+ * scoped to the caller, so one client's key never replays another client's response. Server
+ * errors are not recorded, so a retry after one runs the request again.
+ */
+@Service
+public class IdempotencyStore {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+    private static final long POLL_INTERVAL_MS = 50;
+
+    /**
+     * A recorded response.
+     * @param status The HTTP status.
+     * @param contentType The content type, or null if there is no body.
+     * @param body The response body.
+     */
+    public record StoredResponse(int status, String contentType, byte[] body) {
+    }
+
+    private record Row(String fingerprint, Integer status, String contentType, byte[] body,
+                       LocalDateTime lockedUntil, LocalDateTime expiresAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long ttlMs;
+    private final long waitMs;
+    private final long lockMs;
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                            @Value("${cards.idempotency.ttl-ms:86400000}") long ttlMs,
+                            @Value("${cards.idempotency.wait-ms:10000}") long waitMs,
+                            @Value("${cards.idempotency.lock-ms:60000}") long lockMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.ttlMs = ttlMs;
+        this.waitMs = waitMs;
+        this.lockMs = lockMs;
+    }
+
+    /**
+     * Claim an idempotency key, or get the response recorded for it.
+     * @param caller Identifies the client; keys of different callers never match.
+     * @param key The idempotency key.
+     * @param fingerprint Identifies the request; a key may only be reused for the same request.
+     * @return The recorded response to replay, or null if the caller now owns the key and must
+     *         {@link #complete(String, String, StoredResponse)} it.
+     * @throws IllegalArgumentException if the key was used for a different request.
+     * @throws IllegalStateException if the request holding the key is still running after the wait time.
+     * @throws InterruptedException if interrupted while waiting for the request holding the key.
+     */
+    public StoredResponse claim(String caller, String key, String fingerprint) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs);
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            if (insert(caller, key, fingerprint, now)) {
+                count("miss");
+                return null;
+            }
+            Row row = find(caller, key);
+            if (row == null) {
+                // Released or purged since the insert failed; try to claim it again.
+                continue;
+            }
+            if (row.expiresAt().isBefore(now)) {
+                jdbcTemplate.update("DELETE FROM idempotency_keys "
+                        + "WHERE caller = ? AND idempotency_key = ? AND expires_at < ?",
+                        caller, key, Timestamp.valueOf(now));
+                continue;
+            }
+            if (!row.fingerprint().equals(fingerprint)) {
+                count("mismatch");
+                throw new IllegalArgumentException(
+                        "Idempotency-Key " + key + " was already used for a different request");
+            }
+            if (row.status() != null) {
+                count("hit");
+                byte[] body = row.body() != null ? row.body() : new byte[0];
+                return new StoredResponse(row.status(), row.contentType(), body);
+            }
+            if (row.lockedUntil().isBefore(now) && takeOver(caller, key, now)) {
+                logger.warn("Took over Idempotency-Key {} from a request that did not complete", key);
+                count("miss");
+                return null;
+            }
+            if (System.nanoTime() > deadline) {
+                count("in_progress");
+                throw new IllegalStateException("A request with Idempotency-Key " + key + " is still in progress");
+            }
+            TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MS);
+        }
+    }
+
+    /**
+     * Record the response of a claimed key. Server errors release the key instead.
+     * @param caller The caller that claimed the key.
+     * @param key The idempotency key.
+     * @param response The response of the request that claimed the key.
+     */
+    public void complete(String caller, String key, StoredResponse response) {
+        if (response.status() >= 500) {
+            jdbcTemplate.update("DELETE FROM idempotency_keys "
+                    + "WHERE caller = ? AND idempotency_key = ? AND status IS NULL", caller, key);
+            return;
+        }
+        jdbcTemplate.update("UPDATE idempotency_keys SET status = ?, content_type = ?, body = ?, expires_at = ? "
+                        + "WHERE caller = ? AND idempotency_key = ? AND status IS NULL",
+                response.status(), response.contentType(), response.body(),
+                Timestamp.valueOf(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(ttlMs))), caller, key);
+    }
+
+    /**
+     * Delete expired keys.
+     */
+    @Scheduled(fixedDelayString = "${cards.idempotency.purge-interval-ms:3600000}")
+    public void purge() {
+        int purged = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < ?",
+                Timestamp.valueOf(LocalDateTime.now()));
+        logger.debug("Purged {} expired idempotency keys", purged);
+    }
+
+    private boolean insert(String caller, String key, String fingerprint, LocalDateTime now) {
+        try {
+            jdbcTemplate.update("INSERT INTO idempotency_keys "
+                            + "(caller, idempotency_key, fingerprint, locked_until, expires_at) VALUES (?, ?, ?, ?, ?)",
+                    caller, key, fingerprint, Timestamp.valueOf(now.plusNanos(TimeUnit.MILLISECONDS.toNanos(lockMs))),
+                    Timestamp.valueOf(now.plusNanos(TimeUnit.MILLISECONDS.toNanos(ttlMs))));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private Row find(String caller, String key) {
+        List<Row> rows = jdbcTemplate.query("SELECT fingerprint, status, content_type, body, locked_until, expires_at "
+                        + "FROM idempotency_keys WHERE caller = ? AND idempotency_key = ?",
+                (rs, rowNum) -> new Row(rs.getString("fingerprint"), (Integer) rs.getObject("status"),
+                        rs.getString("content_type"), rs.getBytes("body"),
+                        rs.getTimestamp("locked_until").toLocalDateTime(),
+                        rs.getTimestamp("expires_at").toLocalDateTime()),
+                caller, key);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private boolean takeOver(String caller, String key, LocalDateTime now) {
+        return jdbcTemplate.update("UPDATE idempotency_keys SET locked_until = ? "
+                        + "WHERE caller = ? AND idempotency_key = ? AND status IS NULL AND locked_until < ?",
+                Timestamp.valueOf(now.plusNanos(TimeUnit.MILLISECONDS.toNanos(lockMs))), caller, key,
+                Timestamp.valueOf(now)) == 1;
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("cards.idempotency.requests", "outcome", outcome).increment();
+    }
+}
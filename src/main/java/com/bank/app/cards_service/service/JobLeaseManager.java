@@ -0,0 +1,62 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.entity.JobLease;
+import com.bank.app.cards_service.repo.JobLeaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Service
+public class JobLeaseManager {
+    private static final Logger logger = LoggerFactory.getLogger(JobLeaseManager.class);
+
+    private final String owner = UUID.randomUUID().toString();
+
+    @Autowired
+    private JobLeaseRepository jobLeaseRepository;
+
+    /**
+     * Try to acquire (or renew) the named lease for this instance.
+     * @param name The name of the lease.
+     * @param ttl How long the lease is held before other instances may take it over.
+     * @return true if this instance now holds the lease.
+     */
+    public boolean tryAcquire(String name, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        if (jobLeaseRepository.tryAcquire(name, owner, now, now.plus(ttl)) == 1) {
+            return true;
+        }
+        if (jobLeaseRepository.existsById(name)) {
+            return false;
+        }
+        try {
+            jobLeaseRepository.saveAndFlush(new JobLease(name, owner, now.plus(ttl)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Lease {} was created concurrently by another instance", name);
+            return false;
+        }
+    }
+
+    /**
+     * Release the named lease if it is held by this instance.
+     * @param name The name of the lease.
+     */
+    public void release(String name) {
+        jobLeaseRepository.release(name, owner, LocalDateTime.now());
+    }
+
+    /**
+     * Get the identifier this instance uses as lease owner.
+     * @return The owner identifier.
+     */
+    public String getOwner() {
+        return owner;
+    }
+}
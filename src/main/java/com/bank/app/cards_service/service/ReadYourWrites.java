@@ -0,0 +1,82 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.config.DataSourceRouting;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which cards and users were written recently, so that reads of them go to the primary
+ * database until the replicas have had time to catch up. Reads of anything else may be served by
+ * a replica. Only has an effect with {@code cards.datasource.routing.enabled=true}.
+ */
+@Service
+public class ReadYourWrites {
+
+    private final boolean enabled;
+    private final Cache<Long, Boolean> recentCards;
+    private final Cache<Long, Boolean> recentUsers;
+
+    public ReadYourWrites(@Value("${cards.datasource.routing.enabled:false}") boolean enabled,
+                          @Value("${cards.datasource.read-your-writes-ms:5000}") long windowMs,
+                          @Value("${cards.datasource.read-your-writes.maximum-keys:100000}") long maximumKeys) {
+        this.enabled = enabled;
+        this.recentCards = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterWrite(Duration.ofMillis(windowMs))
+                .build();
+        this.recentUsers = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterWrite(Duration.ofMillis(windowMs))
+                .build();
+    }
+
+    /**
+     * Record a committed card change, made by this or another instance. Called before the caches
+     * are invalidated, so a reload after the invalidation already goes to the primary.
+     * @param cardId The ID of the changed card.
+     * @param userId The ID of the card's user, or null if unknown.
+     */
+    public void recordWrite(Long cardId, Long userId) {
+        if (!enabled) {
+            return;
+        }
+        if (cardId != null) {
+            recentCards.put(cardId, Boolean.TRUE);
+        }
+        if (userId != null) {
+            recentUsers.put(userId, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Run a read of one card, on the primary if the card was written recently.
+     * @param cardId The ID of the card.
+     * @param query The query reading the card.
+     * @return The result of the query.
+     */
+    public <T> T card(Long cardId, Supplier<T> query) {
+        return read(recentCards, cardId, query);
+    }
+
+    /**
+     * Run a read of a user's cards, on the primary if one of them was written recently.
+     * @param userId The ID of the user.
+     * @param query The query reading the user's cards.
+     * @return The result of the query.
+     */
+    public <T> T user(Long userId, Supplier<T> query) {
+        return read(recentUsers, userId, query);
+    }
+
+    private <T> T read(Cache<Long, Boolean> recent, Long id, Supplier<T> query) {
+        if (enabled && id != null && recent.getIfPresent(id) != null) {
+            return DataSourceRouting.onPrimary(query);
+        }
+        return query.get();
+    }
+}
@@ -0,0 +1,113 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.entity.Card;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Cache of each user's card list, bounded by the number of users held. Cached lists are kept
+ * current by applying card changes to them in place, so they never need to be rebuilt with a
+ * full query once loaded.
+ */
+@Service
+public class UserCardsCache {
+
+    private final Cache<Long, List<Card>> cache;
+
+    public UserCardsCache(MeterRegistry meterRegistry,
+                          @Value("${cards.cache.by-user.maximum-users:50000}") long maximumUsers,
+                          @Value("${cards.cache.by-user.ttl-ms:600000}") long ttlMs) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumUsers)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "cards.by-user");
+    }
+
+    /**
+     * Get a user's cards from the cache, loading them on a miss.
+     * @param userId The ID of the user.
+     * @param loader Loads the user's cards on a miss.
+     * @return Copies of the user's cards.
+     */
+    public List<Card> get(Long userId, Function<Long, List<Card>> loader) {
+        List<Card> cards = cache.get(userId, id -> copyOf(loader.apply(id)));
+        return copyOf(cards);
+    }
+
+    /**
+     * Compute the aggregate version of a user's cards: the number of cards plus the sum of their
+     * versions. Issuing a card adds one card and every change adds one to a card's version, so the
+     * aggregate grows by one with every change to the user's cards and is the same on every instance.
+     * @param cards The user's cards.
+     * @return The aggregate version.
+     */
+    public static long versionOf(List<Card> cards) {
+        long version = cards.size();
+        for (Card card : cards) {
+            if (card.getVersion() != null) {
+                version += card.getVersion();
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Apply an issued or changed card to its user's cached list, if that list is cached.
+     * @param card The card as written by the change.
+     */
+    public void apply(Card card) {
+        if (card.getUserId() == null) {
+            return;
+        }
+        cache.asMap().computeIfPresent(card.getUserId(), (userId, cards) -> {
+            List<Card> updated = new ArrayList<>(cards.size() + 1);
+            boolean replaced = false;
+            for (Card cached : cards) {
+                if (cached.getId().equals(card.getId())) {
+                    // Changes committed concurrently may arrive out of order; keep the newest.
+                    updated.add(isNewer(cached, card) ? cached : card.toBuilder().build());
+                    replaced = true;
+                } else {
+                    updated.add(cached);
+                }
+            }
+            if (!replaced) {
+                updated.add(card.toBuilder().build());
+            }
+            return List.copyOf(updated);
+        });
+    }
+
+    /**
+     * Drop a user's cached card list.
+     * @param userId The ID of the user.
+     */
+    public void evict(Long userId) {
+        if (userId != null) {
+            cache.invalidate(userId);
+        }
+    }
+
+    private static boolean isNewer(Card cached, Card card) {
+        return cached.getVersion() != null && card.getVersion() != null && cached.getVersion() > card.getVersion();
+    }
+
+    private static List<Card> copyOf(List<Card> cards) {
+        List<Card> copy = new ArrayList<>(cards.size());
+        for (Card card : cards) {
+            copy.add(card.toBuilder().build());
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,135 @@
+package com.bank.app.cards_service.service.impl;
+
+import com.bank.app.cards_service.service.CardNumberBlockAllocator;
+import com.bank.app.cards_service.service.CardNumberGenerator;
+import com.bank.core.entity.CardType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Card number generator that hands out numbers from blocks reserved per instance in the database.
+ * <p>
+ * A PAN is the 6-digit BIN of the card type, a 9-digit account number and a Luhn check digit.
+ * Each instance reserves a block of sequence numbers per BIN, so numbers are unique across replicas
+ * without a database round trip per card. The sequence number is scrambled with a bijection on the
+ * 9-digit space, so consecutive cards do not get consecutive numbers. Apart from the returned string
+ * the hot path does not allocate.
+ * <p>
+ * Numbers are only unique among generated numbers: cards issued by the old random generator used
+ * the same BINs, so card issuance skips generated numbers that an existing card already has.
+ */
+@Service
+public class BlockCardNumberGenerator implements CardNumberGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(BlockCardNumberGenerator.class);
+
+    private static final int BIN_LENGTH = 6;
+    private static final int PAN_LENGTH = 16;
+    private static final long ACCOUNT_SPACE = 1_000_000_000L;
+    // Coprime to 10, so multiplying modulo 10^9 is a bijection on the account space.
+    private static final long SCRAMBLE_MULTIPLIER = 738_219_117L;
+    private static final long SCRAMBLE_OFFSET = 104_729L;
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[PAN_LENGTH]);
+
+    private final CardNumberBlockAllocator allocator;
+    private final long blockSize;
+    private final BinRange creditRange;
+    private final BinRange debitRange;
+
+    public BlockCardNumberGenerator(CardNumberBlockAllocator allocator,
+                                    @Value("${cards.number.bin.credit:400000}") String creditBin,
+                                    @Value("${cards.number.bin.debit:410000}") String debitBin,
+                                    @Value("${cards.number.block-size:10000}") long blockSize) {
+        if (blockSize < 1 || blockSize > ACCOUNT_SPACE) {
+            throw new IllegalArgumentException("Card number block size must be between 1 and " + ACCOUNT_SPACE);
+        }
+        this.allocator = allocator;
+        this.blockSize = blockSize;
+        this.creditRange = new BinRange(creditBin);
+        this.debitRange = new BinRange(debitBin);
+    }
+
+    /**
+     * Generate a new, unique card number.
+     * @param cardType The type of the card; credit cards use the credit BIN, all others the debit BIN.
+     * @return A Luhn-valid 16-digit card number.
+     */
+    @Override
+    public String generate(CardType cardType) {
+        BinRange range = cardType == CardType.CREDIT ? creditRange : debitRange;
+        long account = (range.nextSequence() * SCRAMBLE_MULTIPLIER + SCRAMBLE_OFFSET) % ACCOUNT_SPACE;
+
+        char[] pan = BUFFER.get();
+        System.arraycopy(range.binDigits, 0, pan, 0, BIN_LENGTH);
+        for (int i = PAN_LENGTH - 2; i >= BIN_LENGTH; i--) {
+            pan[i] = (char) ('0' + account % 10);
+            account /= 10;
+        }
+        pan[PAN_LENGTH - 1] = luhnCheckDigit(pan, PAN_LENGTH - 1);
+        return new String(pan);
+    }
+
+    /**
+     * Compute the Luhn check digit for the first {@code length} digits of a number.
+     * @param digits The digits of the number.
+     * @param length The number of digits to use.
+     * @return The check digit character.
+     */
+    static char luhnCheckDigit(char[] digits, int length) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = length - 1; i >= 0; i--) {
+            int digit = digits[i] - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+
+    /**
+     * The block of sequence numbers this instance currently holds for one BIN.
+     */
+    private final class BinRange {
+        private final String bin;
+        private final char[] binDigits;
+        private final ReentrantLock lock = new ReentrantLock();
+        private long next;
+        private long end;
+
+        BinRange(String bin) {
+            if (bin == null || bin.length() != BIN_LENGTH || !bin.chars().allMatch(Character::isDigit)) {
+                throw new IllegalArgumentException("BIN must be " + BIN_LENGTH + " digits: " + bin);
+            }
+            this.bin = bin;
+            this.binDigits = bin.toCharArray();
+        }
+
+        // A lock rather than synchronized: refilling blocks on a database call, which would pin a virtual thread.
+        long nextSequence() {
+            lock.lock();
+            try {
+                if (next == end) {
+                    long block = allocator.allocate(bin);
+                    if ((block + 1) * blockSize > ACCOUNT_SPACE) {
+                        throw new IllegalStateException("Card numbers exhausted for BIN " + bin);
+                    }
+                    next = block * blockSize;
+                    end = next + blockSize;
+                    logger.info("Reserved card number block {} for BIN {}", block, bin);
+                }
+                return next++;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.bank.app.cards_service.service.impl;
+
+import com.bank.app.cards_service.dto.BulkIssueStatus;
+import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.service.CardsService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Issues large numbers of cards in the background. A job is split into chunks, each issued in
+ * its own transaction with batched inserts, so progress is visible while the job runs and a
+ * failure only rolls back the chunk it happened in. Job progress is kept in memory on the
+ * instance that runs the job.
+ */
+@Service
+public class BulkIssuanceJob {
+    private static final Logger logger = LoggerFactory.getLogger(BulkIssuanceJob.class);
+
+    /** Progress of one job, updated by the thread running it. */
+    private static final class Progress {
+        private final String jobId = UUID.randomUUID().toString();
+        private final int total;
+        private final Instant startedAt = Instant.now();
+        private final AtomicInteger issued = new AtomicInteger();
+        private volatile BulkIssueStatus.State state = BulkIssueStatus.State.RUNNING;
+        private volatile String error;
+        private volatile Instant finishedAt;
+
+        private Progress(int total) {
+            this.total = total;
+        }
+
+        private void finish(BulkIssueStatus.State state, String error) {
+            this.error = error;
+            this.finishedAt = Instant.now();
+            this.state = state;
+        }
+
+        private BulkIssueStatus snapshot() {
+            return new BulkIssueStatus(jobId, state, total, issued.get(), error, startedAt, finishedAt);
+        }
+    }
+
+    @Autowired
+    private CardsService cardsService;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor taskExecutor;
+
+    @Value("${cards.bulk.issue.max-cards:100000}")
+    private int maxCards;
+
+    @Value("${cards.bulk.issue.chunk-size:1000}")
+    private int chunkSize;
+
+    private final Cache<String, Progress> jobs;
+    private final Semaphore runningJobs;
+    private final Counter issuedCounter;
+    private final Timer jobTimer;
+
+    public BulkIssuanceJob(MeterRegistry meterRegistry,
+                           @Value("${cards.bulk.issue.max-running-jobs:2}") int maxRunningJobs,
+                           @Value("${cards.bulk.issue.retention-ms:86400000}") long retentionMs) {
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(retentionMs))
+                .build();
+        this.runningJobs = new Semaphore(maxRunningJobs);
+        this.issuedCounter = Counter.builder("cards.bulk.issued")
+                .description("Cards issued by bulk issuance jobs")
+                .register(meterRegistry);
+        this.jobTimer = Timer.builder("cards.bulk.issue.job")
+                .description("Duration of bulk issuance jobs")
+                .register(meterRegistry);
+        Gauge.builder("cards.bulk.issue.running", runningJobs, permits -> maxRunningJobs - permits.availablePermits())
+                .description("Bulk issuance jobs currently running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start a job issuing the given cards.
+     * @param cards The card details for the new cards; each needs a user ID and a card type.
+     * @return The status of the started job.
+     * @throws IllegalArgumentException if the request is empty, too large or has incomplete cards.
+     * @throws IllegalStateException if too many jobs are already running.
+     */
+    public BulkIssueStatus submit(List<Card> cards) {
+        if (cards == null || cards.isEmpty()) {
+            throw new IllegalArgumentException("At least one card is required");
+        }
+        if (cards.size() > maxCards) {
+            throw new IllegalArgumentException("At most " + maxCards + " cards are allowed per job");
+        }
+        for (int i = 0; i < cards.size(); i++) {
+            Card card = cards.get(i);
+            if (card == null || card.getUserId() == null || card.getCardType() == null) {
+                throw new IllegalArgumentException("Card " + i + " needs a user ID and a card type");
+            }
+        }
+        if (!runningJobs.tryAcquire()) {
+            throw new IllegalStateException("Too many bulk issuance jobs are running");
+        }
+        Progress progress = new Progress(cards.size());
+        jobs.put(progress.jobId, progress);
+        List<Card> requested = List.copyOf(cards);
+        try {
+            taskExecutor.execute(() -> run(progress, requested));
+        } catch (TaskRejectedException e) {
+            runningJobs.release();
+            jobs.invalidate(progress.jobId);
+            throw new IllegalStateException("Bulk issuance job could not be started", e);
+        }
+        logger.info("Started bulk issuance job {} for {} cards", progress.jobId, cards.size());
+        return progress.snapshot();
+    }
+
+    /**
+     * Get the progress of a job.
+     * @param jobId The ID of the job.
+     * @return The job's status, or null if the job is unknown here or its status has expired.
+     */
+    public BulkIssueStatus getStatus(String jobId) {
+        Progress progress = jobs.getIfPresent(jobId);
+        return progress == null ? null : progress.snapshot();
+    }
+
+    private void run(Progress progress, List<Card> cards) {
+        long start = System.nanoTime();
+        try {
+            for (int from = 0; from < cards.size(); from += chunkSize) {
+                List<Card> chunk = new ArrayList<>(cards.subList(from, Math.min(from + chunkSize, cards.size())));
+                cardsService.issueCards(chunk);
+                progress.issued.addAndGet(chunk.size());
+                issuedCounter.increment(chunk.size());
+                logger.debug("Bulk issuance job {}: {} of {} cards issued", progress.jobId, progress.issued.get(),
+                        progress.total);
+            }
+            progress.finish(BulkIssueStatus.State.COMPLETED, null);
+            logger.info("Bulk issuance job {} issued {} cards", progress.jobId, progress.total);
+        } catch (RuntimeException e) {
+            logger.error("Bulk issuance job {} failed after {} of {} cards", progress.jobId, progress.issued.get(),
+                    progress.total, e);
+            progress.finish(BulkIssueStatus.State.FAILED, e.getMessage());
+        } finally {
+            runningJobs.release();
+            jobTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.bank.app.cards_service.service.impl;
+
+import com.bank.app.cards_service.dto.CardExpiry;
+import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.repo.CardsRepository;
+import com.bank.app.cards_service.service.CardChangedEvent;
+import com.bank.app.cards_service.service.CardEventPublisher;
+import com.bank.app.cards_service.service.CardExpiryIndex;
+import com.bank.app.cards_service.service.JobLeaseManager;
+import com.bank.core.entity.CardStatus;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires active cards whose expiry date has passed.
+ * <p>
+ * Cards are expired from the {@link CardExpiryIndex} at midnight, when they become due. The index
+ * is loaded with a paged scan in the background after startup, so the scan does not delay
+ * readiness, and is then kept current from card change events, so only the due cards are read.
+ * Cards changed on another replica are not in this replica's index; they are expired by that
+ * replica or by the periodic reconciliation.
+ * <p>
+ * The reconciliation scans the database as a safety net. The ID space is split into fixed-size
+ * ranges. For each range the job takes a lease, so only one replica works on it, and then walks it
+ * in keyset-paged chunks. Each chunk is locked, moved to EXPIRED with one set-based update and has
+ * its events published in the same transaction. A finished range keeps its lease until the end of
+ * the run's interval, so no other replica scans it again in the same run.
+ */
+@Component
+public class CardExpiryJob {
+    private static final Logger logger = LoggerFactory.getLogger(CardExpiryJob.class);
+    private static final String LEASE_PREFIX = "card-expiry:";
+
+    @Autowired
+    private CardsRepository cardRepository;
+
+    @Autowired
+    private CardEventPublisher cardEventPublisher;
+
+    @Autowired
+    private JobLeaseManager jobLeaseManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CardExpiryIndex cardExpiryIndex;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor taskExecutor;
+
+    @Value("${cards.expiry.index.enabled:true}")
+    private boolean indexEnabled;
+
+    @Value("${cards.expiry.index.page-size:10000}")
+    private int indexPageSize;
+
+    @Value("${cards.expiry.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${cards.expiry.range-size:1000000}")
+    private long rangeSize;
+
+    @Value("${cards.expiry.lease-ttl-ms:300000}")
+    private long leaseTtlMs;
+
+    @Value("${cards.expiry.interval-ms:600000}")
+    private long intervalMs;
+
+    /**
+     * Start loading the expiry index once the application has started. The load runs in the
+     * background; until it finishes, changes still reach the index and reconciliation covers the rest.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startIndexLoad() {
+        if (indexEnabled) {
+            taskExecutor.execute(this::loadIndex);
+        }
+    }
+
+    /**
+     * Load the expiry index with all active cards, and expire any that are already due.
+     */
+    public void loadIndex() {
+        if (!indexEnabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        long afterId = 0;
+        while (true) {
+            List<CardExpiry> page = cardRepository.findExpiriesByStatus(CardStatus.ACTIVE, afterId,
+                    PageRequest.ofSize(indexPageSize));
+            for (CardExpiry expiry : page) {
+                if (expiry.expiryDate() != null) {
+                    cardExpiryIndex.add(expiry.id(), expiry.expiryDate());
+                }
+            }
+            if (page.size() < indexPageSize) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).id();
+        }
+        logger.info("Loaded {} active cards into the expiry index in {} ms, earliest expiry {}",
+                cardExpiryIndex.size(), Duration.ofNanos(System.nanoTime() - started).toMillis(),
+                cardExpiryIndex.earliestExpiryDate());
+        expireDue();
+    }
+
+    /**
+     * Keep the expiry index current: add cards that became active and remove cards that left ACTIVE.
+     * @param event The card change, delivered after its transaction committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardChanged(CardChangedEvent event) {
+        Card card = event.card();
+        if (!indexEnabled || card.getExpiryDate() == null) {
+            return;
+        }
+        if (card.getStatus() != CardStatus.ACTIVE) {
+            if (event.previousStatus() == CardStatus.ACTIVE) {
+                cardExpiryIndex.remove(card.getId(), card.getExpiryDate());
+            }
+            return;
+        }
+        cardExpiryIndex.add(card.getId(), card.getExpiryDate());
+        if (card.getExpiryDate().isBefore(LocalDate.now())) {
+            // Already due: expire it now rather than at the next midnight, outside the committed transaction.
+            taskScheduler.schedule(this::expireDue, Instant.now());
+        }
+    }
+
+    /**
+     * Expire the cards in the expiry index that are due. Runs at midnight, when cards expiring
+     * the day before become due.
+     */
+    @Scheduled(cron = "${cards.expiry.index.cron:0 0 0 * * *}")
+    public void expireDue() {
+        if (!indexEnabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        long[] due = cardExpiryIndex.pollDue(today);
+        if (due.length == 0) {
+            return;
+        }
+        long started = System.nanoTime();
+        long expired = 0;
+        for (int from = 0; from < due.length; from += chunkSize) {
+            List<Long> ids = new ArrayList<>(Math.min(chunkSize, due.length - from));
+            for (int i = from; i < Math.min(from + chunkSize, due.length); i++) {
+                ids.add(due[i]);
+            }
+            try {
+                expired += expireIds(ids, today).size();
+            } catch (RuntimeException e) {
+                // Put the rest back so the next run retries them; reconciliation covers them otherwise.
+                for (int i = from; i < due.length; i++) {
+                    cardExpiryIndex.add(due[i], today.minusDays(1));
+                }
+                logger.error("Failed to expire {} due cards from the expiry index", due.length - from, e);
+                break;
+            }
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        record("index", elapsedNanos, expired);
+        logger.info("Expired {} of {} due cards from the expiry index in {} ms", expired, due.length,
+                Duration.ofNanos(elapsedNanos).toMillis());
+    }
+
+    /**
+     * Scheduled reconciliation that expires due cards missing from the expiry index, for
+     * example cards activated on another replica.
+     */
+    @Scheduled(fixedRateString = "${cards.expiry.interval-ms:600000}")
+    public void expireCards() {
+        logger.debug("Expiring cards");
+        Long maxId = cardRepository.findMaxId();
+        if (maxId == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        Instant runEnd = Instant.now().plusMillis(intervalMs);
+        long started = System.nanoTime();
+        long expired = 0;
+        for (long rangeStart = 0; rangeStart <= maxId; rangeStart += rangeSize) {
+            expired += expireRange(rangeStart, rangeStart + rangeSize, today, runEnd);
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        record("reconciliation", elapsedNanos, expired);
+        long elapsedMs = Math.max(1, Duration.ofNanos(elapsedNanos).toMillis());
+        logger.info("Expired {} cards in {} ms ({} rows/s)", expired, elapsedMs, expired * 1000 / elapsedMs);
+    }
+
+    /**
+     * Expire all due cards with an ID in the given range, if the range lease can be taken. Once
+     * the range is done its lease is held until the end of the run, and it is only released if
+     * the range fails, so another replica can retry it.
+     * @param rangeStart The first card ID of the range (inclusive).
+     * @param rangeEnd The last card ID of the range (exclusive).
+     * @param today The date cards must have expired before.
+     * @param runEnd When the current run's interval ends.
+     * @return The number of cards expired.
+     */
+    long expireRange(long rangeStart, long rangeEnd, LocalDate today, Instant runEnd) {
+        String lease = LEASE_PREFIX + rangeStart;
+        Duration leaseTtl = Duration.ofMillis(leaseTtlMs);
+        if (!jobLeaseManager.tryAcquire(lease, leaseTtl)) {
+            logger.debug("Skipping expiry range [{}, {}), lease held by another instance", rangeStart, rangeEnd);
+            return 0;
+        }
+        long expired = 0;
+        try {
+            long afterId = rangeStart - 1;
+            while (true) {
+                long chunkStarted = System.nanoTime();
+                List<Card> chunk = expireChunk(afterId, rangeEnd, today);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                expired += chunk.size();
+                afterId = chunk.get(chunk.size() - 1).getId();
+                logger.debug("Expired chunk of {} cards up to ID {} in {} ms", chunk.size(), afterId,
+                        Duration.ofNanos(System.nanoTime() - chunkStarted).toMillis());
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+                if (!jobLeaseManager.tryAcquire(lease, leaseTtl)) {
+                    logger.warn("Lost the lease of expiry range [{}, {}) after ID {}", rangeStart, rangeEnd, afterId);
+                    return expired;
+                }
+            }
+        } catch (RuntimeException e) {
+            jobLeaseManager.release(lease);
+            throw e;
+        }
+        Duration untilRunEnd = Duration.between(Instant.now(), runEnd);
+        if (untilRunEnd.compareTo(leaseTtl) > 0) {
+            jobLeaseManager.tryAcquire(lease, untilRunEnd);
+        }
+        return expired;
+    }
+
+    /**
+     * Lock the next chunk of due cards, expire them with one update and publish their events,
+     * all in a single transaction.
+     * @param afterId The keyset cursor; only cards with a greater ID are considered.
+     * @param endId The exclusive upper bound of the current range.
+     * @param today The date cards must have expired before.
+     * @return The cards expired in this chunk.
+     */
+    private List<Card> expireChunk(long afterId, long endId, LocalDate today) {
+        return transactionTemplate.execute(status -> expire(cardRepository.findExpiringChunk(CardStatus.ACTIVE,
+                today, afterId, endId, PageRequest.ofSize(chunkSize))));
+    }
+
+    /**
+     * Lock the given cards that are still active and due, expire them with one update and publish
+     * their events, all in a single transaction.
+     * @param ids The IDs of the cards to expire.
+     * @param today The date cards must have expired before.
+     * @return The cards expired.
+     */
+    private List<Card> expireIds(List<Long> ids, LocalDate today) {
+        return transactionTemplate.execute(status ->
+                expire(cardRepository.findExpiringByIds(ids, CardStatus.ACTIVE, today)));
+    }
+
+    /**
+     * Expire locked cards with one update and publish their events.
+     * @param chunk The cards, locked in the current transaction.
+     * @return The cards expired.
+     */
+    private List<Card> expire(List<Card> chunk) {
+        if (chunk.isEmpty()) {
+            return chunk;
+        }
+        List<Long> ids = chunk.stream().map(Card::getId).toList();
+        cardRepository.updateStatus(ids, CardStatus.ACTIVE, CardStatus.EXPIRED);
+        for (Card card : chunk) {
+            card.setStatus(CardStatus.EXPIRED);
+            card.setVersion(card.getVersion() + 1);
+            cardEventPublisher.sendCardExpireMessage(card);
+            applicationEventPublisher.publishEvent(new CardChangedEvent(card, CardStatus.ACTIVE));
+        }
+        return chunk;
+    }
+
+    private void record(String trigger, long elapsedNanos, long expired) {
+        Timer.builder("cards.expiry.run")
+                .description("Duration of card expiry runs")
+                .tag("trigger", trigger)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("cards.expiry.expired")
+                .description("Cards expired per expiry run")
+                .tag("trigger", trigger)
+                .baseUnit("cards")
+                .register(meterRegistry)
+                .record(expired);
+    }
+}
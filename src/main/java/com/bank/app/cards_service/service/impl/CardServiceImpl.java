@@ -1,26 +1,57 @@
 package com.bank.app.cards_service.service.impl;
 
+import com.bank.app.cards_service.dto.BulkTransitionResult;
+import com.bank.app.cards_service.dto.CardPage;
+import com.bank.app.cards_service.dto.CardSummary;
 import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.entity.CardTransition;
 import com.bank.app.cards_service.exception.CardNotFoundException;
+import com.bank.app.cards_service.exception.CardStatusConflictException;
 import com.bank.app.cards_service.repo.CardsRepository;
+import com.bank.app.cards_service.service.CardCache;
+import com.bank.app.cards_service.service.CardChangedEvent;
 import com.bank.app.cards_service.service.CardEventPublisher;
+import com.bank.app.cards_service.service.CardNumberGenerator;
+import com.bank.app.cards_service.service.CardsIssuedEvent;
 import com.bank.app.cards_service.service.CardsService;
+import com.bank.app.cards_service.service.ReadYourWrites;
+import com.bank.app.cards_service.service.UserCardsCache;
 import com.bank.core.entity.CardStatus;
 import com.bank.core.entity.CardType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class CardServiceImpl implements CardsService {
     private static final Logger logger = LoggerFactory.getLogger(CardServiceImpl.class);
+    private static final int MAX_NUMBER_ATTEMPTS = 5;
+    private static final Set<CardStatus> NON_ACTIVE_STATUSES = EnumSet.complementOf(EnumSet.of(CardStatus.ACTIVE));
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int BULK_CHUNK_SIZE = 1000;
+    private static final int MAX_TRANSITION_ATTEMPTS = 3;
 
     @Autowired
     private CardsRepository cardRepository;
@@ -28,26 +59,127 @@ public class CardServiceImpl implements CardsService {
     @Autowired
     private CardEventPublisher cardEventPublisher;
 
+    @Autowired
+    private CardNumberGenerator cardNumberGenerator;
+
+    @Autowired
+    private CardCache cardCache;
+
+    @Autowired
+    private UserCardsCache userCardsCache;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${cards.bulk.max-ids:10000}")
+    private int bulkMaxIds;
+
+    @Value("${cards.bulk.issue.jdbc-batch-size:50}")
+    private int issueJdbcBatchSize;
+
+    @Value("${cards.number.check-existing:true}")
+    private boolean checkExistingNumbers;
+
     /**
      * Request a new card.
      * @param card The card details for the new card request.
      * @return The newly created card.
      */
     @Override
+    @Transactional
     public Card requestNewCard(Card card) {
         logger.debug("Requesting new card: {}", card);
+        card.setId(null);
+        card.setVersion(null);
+        initializeNewCard(card, LocalDate.now());
+        assignCardNumbers(List.of(card));
+        Card savedCard = cardRepository.save(card);
+        cardEventPublisher.sendIssueCardMessage(savedCard);
+        applicationEventPublisher.publishEvent(new CardChangedEvent(savedCard, null));
+        return savedCard;
+    }
+
+    /**
+     * Issue many cards in one transaction. The cards are inserted in JDBC batches of
+     * cards.bulk.issue.jdbc-batch-size, flushing and clearing the persistence context after each
+     * batch, and their issue events are written to the outbox as one batch. One change event is
+     * published for the whole list.
+     * @param cards The card details for the new cards; each needs a user ID and a card type.
+     * @return The issued cards, detached from the persistence context.
+     */
+    @Override
+    @Transactional
+    public List<Card> issueCards(List<Card> cards) {
+        logger.debug("Issuing {} cards", cards.size());
+        entityManager.unwrap(Session.class).setJdbcBatchSize(issueJdbcBatchSize);
+        LocalDate today = LocalDate.now();
+        for (Card card : cards) {
+            card.setId(null);
+            card.setVersion(null);
+            initializeNewCard(card, today);
+        }
+        assignCardNumbers(cards);
+        for (int i = 0; i < cards.size(); i++) {
+            entityManager.persist(cards.get(i));
+            if ((i + 1) % issueJdbcBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        cardEventPublisher.sendIssueCardMessages(cards);
+        applicationEventPublisher.publishEvent(new CardsIssuedEvent(cards));
+        return cards;
+    }
+
+    /**
+     * Set the status, expiry date and limits of a card about to be issued.
+     * @param card The card details from the request.
+     * @param today The issue date.
+     */
+    private void initializeNewCard(Card card, LocalDate today) {
         card.setStatus(CardStatus.PENDING_ACTIVATION);
-        card.setCardNumber(generateCardNumber());
-        card.setExpiryDate(LocalDate.now().plusYears(10));
+        card.setExpiryDate(today.plusYears(10));
 
         if (card.getCardType() == CardType.CREDIT) {
             card.setCreditLimit(new BigDecimal("25000"));
             card.setAvailableLimit(card.getCreditLimit());
         }
+    }
 
-        Card savedCard = cardRepository.save(card);
-        cardEventPublisher.sendIssueCardMessage(savedCard);
-        return savedCard;
+    /**
+     * Give cards about to be issued card numbers no existing card has. Generated numbers never
+     * repeat each other, but can match a number left by the old random generator, which used
+     * the same BINs; such numbers are skipped with one indexed lookup per attempt. The check can be
+     * turned off with cards.number.check-existing=false once no old numbers remain.
+     * @param cards The cards to number.
+     */
+    private void assignCardNumbers(List<Card> cards) {
+        List<Card> unnumbered = cards;
+        for (int attempt = 0; !unnumbered.isEmpty(); attempt++) {
+            if (attempt == MAX_NUMBER_ATTEMPTS) {
+                throw new IllegalStateException("No unused card number found for " + unnumbered.size() + " cards");
+            }
+            for (Card card : unnumbered) {
+                card.setCardNumber(cardNumberGenerator.generate(card.getCardType()));
+            }
+            if (!checkExistingNumbers) {
+                return;
+            }
+            Set<String> taken = new HashSet<>(cardRepository.findExistingCardNumbers(
+                    unnumbered.stream().map(Card::getCardNumber).toList()));
+            if (!taken.isEmpty()) {
+                logger.warn("Skipping {} generated card numbers already used by existing cards", taken.size());
+            }
+            unnumbered = unnumbered.stream().filter(card -> taken.contains(card.getCardNumber())).toList();
+        }
     }
 
     /**
@@ -56,17 +188,10 @@ public class CardServiceImpl implements CardsService {
      * @return The activated card.
      */
     @Override
+    @Transactional
     public Card activateCard(Long cardId) {
         logger.debug("Activating card with ID: {}", cardId);
-        Card card = getCardById(cardId);
-        if (card.getStatus() == CardStatus.PENDING_ACTIVATION) {
-            card.setStatus(CardStatus.ACTIVE);
-            Card activatedCard = cardRepository.save(card);
-            cardEventPublisher.sendCardActivateMessage(activatedCard);
-            return activatedCard;
-        } else {
-            throw new IllegalStateException("Card is not in a pending activation state");
-        }
+        return transition(cardId, CardTransition.ACTIVATE, "Card is not in a pending activation state");
     }
     /**
      * Service method to handle a user’s request to block a card.
@@ -75,26 +200,16 @@ public class CardServiceImpl implements CardsService {
      * @param cardId The ID of the card to be blocked.
      * @return The updated Card object with status PENDING_BLOCK.
      * @throws CardNotFoundException if the card with the specified ID does not exist.
-     * @throws IllegalStateException if the card is not in an eligible status for blocking.
+     * @throws CardStatusConflictException if the card is not in an eligible status for blocking.
      */
     @Override
+    @Transactional
     public Card requestBlockCard(Long cardId) throws CardNotFoundException {
-        // Finds the card by its ID or throws a CardNotFoundException if it does not exist.
-        Card card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new CardNotFoundException("Card not found with ID: " + cardId));
-
-        // Checks if the card is in ACTIVE status before allowing a block request.
-        if (card.getStatus() == CardStatus.ACTIVE) {
-            // Sets the status to PENDING_BLOCK to indicate a pending block request.
-            card.setStatus(CardStatus.PENDING_BLOCK);
-            cardRepository.save(card);  // Persists the updated card status.
-            logger.info("Card with ID {} is now in PENDING_BLOCK status.", cardId);
-        } else {
-            // Throws an exception if the card is not in an eligible status for blocking.
-            throw new IllegalStateException("Card is not eligible for blocking in its current status.");
-        }
-
-        return card;  // Returns the card with the updated status.
+        // Moves an ACTIVE card to PENDING_BLOCK to indicate a pending block request.
+        Card card = transition(cardId, CardTransition.REQUEST_BLOCK,
+                "Card is not eligible for blocking in its current status.");
+        logger.info("Card with ID {} is now in PENDING_BLOCK status.", cardId);
+        return card;
     }
 
     /**
@@ -104,26 +219,16 @@ public class CardServiceImpl implements CardsService {
      * @param cardId The ID of the card to be unblocked.
      * @return The updated Card object with status PENDING_UNBLOCK.
      * @throws CardNotFoundException if the card with the specified ID does not exist.
-     * @throws IllegalStateException if the card is not in an eligible status for unblocking.
+     * @throws CardStatusConflictException if the card is not in an eligible status for unblocking.
      */
     @Override
+    @Transactional
     public Card requestUnblockCard(Long cardId) throws CardNotFoundException {
-        // Finds the card by its ID or throws a CardNotFoundException if it does not exist.
-        Card card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new CardNotFoundException("Card not found with ID: " + cardId));
-
-        // Checks if the card is in BLOCKED status before allowing an unblock request.
-        if (card.getStatus() == CardStatus.BLOCKED) {
-            // Sets the status to PENDING_UNBLOCK to indicate a pending unblock request.
-            card.setStatus(CardStatus.PENDING_UNBLOCK);
-            cardRepository.save(card);  // Persists the updated card status.
-            logger.info("Card with ID {} is now in PENDING_UNBLOCK status.", cardId);
-        } else {
-            // Throws an exception if the card is not in an eligible status for unblocking.
-            throw new IllegalStateException("Card is not eligible for unblocking in its current status.");
-        }
-
-        return card;  // Returns the card with the updated status.
+        // Moves a BLOCKED card to PENDING_UNBLOCK to indicate a pending unblock request.
+        Card card = transition(cardId, CardTransition.REQUEST_UNBLOCK,
+                "Card is not eligible for unblocking in its current status.");
+        logger.info("Card with ID {} is now in PENDING_UNBLOCK status.", cardId);
+        return card;
     }
 
 
@@ -133,17 +238,10 @@ public class CardServiceImpl implements CardsService {
      * @return The blocked card.
      */
     @Override
+    @Transactional
     public Card blockCard(Long cardId) {
         logger.debug("Blocking card with ID: {}", cardId);
-        Card card = getCardById(cardId);
-        if (card.getStatus() == CardStatus.ACTIVE || card.getStatus() == CardStatus.PENDING_BLOCK) {
-            card.setStatus(CardStatus.BLOCKED);
-            Card blockedCard = cardRepository.save(card);
-            cardEventPublisher.sendCardBlockMessage(blockedCard);
-            return blockedCard;
-        } else {
-            throw new IllegalStateException("Only active or pending_block cards can be blocked");
-        }
+        return transition(cardId, CardTransition.BLOCK, "Only active or pending_block cards can be blocked");
     }
 
     /**
@@ -152,17 +250,10 @@ public class CardServiceImpl implements CardsService {
      * @return The unblocked card.
      */
     @Override
+    @Transactional
     public Card unblockCard(Long cardId) {
         logger.debug("Unblocking card with ID: {}", cardId);
-        Card card = getCardById(cardId);
-        if (card.getStatus() == CardStatus.BLOCKED || card.getStatus() == CardStatus.PENDING_UNBLOCK) {
-            card.setStatus(CardStatus.ACTIVE);
-            Card unblockedCard = cardRepository.save(card);
-            cardEventPublisher.sendCardUnblockMessage(unblockedCard);
-            return unblockedCard;
-        } else {
-            throw new IllegalStateException("Only blocked cards can be unblocked");
-        }
+        return transition(cardId, CardTransition.UNBLOCK, "Only blocked cards can be unblocked");
     }
 
     /**
@@ -171,16 +262,136 @@ public class CardServiceImpl implements CardsService {
      * @return The cancelled card.
      */
     @Override
+    @Transactional
     public Card cancelCard(Long cardId) {
         logger.debug("Cancelling card with ID: {}", cardId);
-        Card card = getCardById(cardId);
-        if (card.getStatus() != CardStatus.CANCELLED) {
-            card.setStatus(CardStatus.CANCELLED);
-            Card cancelledCard = cardRepository.save(card);
-            cardEventPublisher.sendCardBlockMessage(cancelledCard);
-            return cancelledCard;
-        } else {
-            throw new IllegalStateException("Card is already cancelled");
+        return transition(cardId, CardTransition.CANCEL, "Card is already cancelled");
+    }
+
+    /**
+     * Apply a transition to one card with a single conditional update guarded by the card's version.
+     * The version and status are taken from the near cache, so when the cached card is current the
+     * transition costs one statement. If the update matches no row, the card is re-read from the
+     * database to tell a stale cache entry from a missing card or a status that does not allow the
+     * transition.
+     * @param cardId The ID of the card to transition.
+     * @param transition The transition to apply.
+     * @param conflictMessage The message to report if the card's status does not allow the transition.
+     * @return The card after the transition.
+     * @throws CardNotFoundException if the card does not exist.
+     * @throws CardStatusConflictException if the card's status does not allow the transition,
+     *         or the card kept changing concurrently.
+     */
+    private Card transition(Long cardId, CardTransition transition, String conflictMessage) {
+        Card card = cardCache.get(cardId, id -> cardRepository.findById(id).orElse(null));
+        for (int attempt = 1; ; attempt++) {
+            if (card == null) {
+                throw new CardNotFoundException("Card not found with ID: " + cardId);
+            }
+            CardStatus previousStatus = card.getStatus();
+            if (transition.isAllowedFrom(previousStatus) && cardRepository.transition(cardId, card.getVersion(),
+                    transition.getAllowedFrom(), transition.getTarget()) == 1) {
+                card.setStatus(transition.getTarget());
+                card.setVersion(card.getVersion() + 1);
+                publishTransition(transition, card);
+                applicationEventPublisher.publishEvent(new CardChangedEvent(card, previousStatus));
+                return card;
+            }
+            Card current = cardRepository.findById(cardId).orElse(null);
+            if (current != null && (Objects.equals(current.getVersion(), card.getVersion())
+                    || attempt == MAX_TRANSITION_ATTEMPTS)) {
+                throw new CardStatusConflictException(conflictMessage);
+            }
+            card = current;
+        }
+    }
+
+    /**
+     * Apply one state transition to many cards, with the same status rules as the single-card methods.
+     * Cards are locked and updated in chunks with one conditional update per chunk, and each chunk's
+     * events are written to the outbox as one JDBC batch, so the relay sends them in large producer batches.
+     * @param transition The transition to apply.
+     * @param cardIds The IDs of the cards to transition.
+     * @return The outcome for each distinct card ID, in request order.
+     */
+    @Override
+    @Transactional
+    public List<BulkTransitionResult> bulkTransition(CardTransition transition, List<Long> cardIds) {
+        if (transition == null || cardIds == null || cardIds.isEmpty()) {
+            throw new IllegalArgumentException("A transition and at least one card ID are required");
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(cardIds));
+        if (ids.size() > bulkMaxIds) {
+            throw new IllegalArgumentException("At most " + bulkMaxIds + " card IDs are allowed per request");
+        }
+        logger.debug("Applying {} to {} cards", transition, ids.size());
+
+        List<BulkTransitionResult> results = new ArrayList<>(ids.size());
+        for (int start = 0; start < ids.size(); start += BULK_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(start, Math.min(start + BULK_CHUNK_SIZE, ids.size()));
+            Map<Long, Card> cards = new HashMap<>();
+            for (Card card : cardRepository.findAllByIdForUpdate(chunk)) {
+                cards.put(card.getId(), card);
+            }
+            List<Long> eligibleIds = new ArrayList<>(chunk.size());
+            for (Card card : cards.values()) {
+                if (transition.isAllowedFrom(card.getStatus())) {
+                    eligibleIds.add(card.getId());
+                }
+            }
+            if (!eligibleIds.isEmpty()) {
+                cardRepository.updateStatusIn(eligibleIds, transition.getAllowedFrom(), transition.getTarget());
+            }
+            List<Card> changed = new ArrayList<>(eligibleIds.size());
+            for (Long id : chunk) {
+                Card card = cards.get(id);
+                if (card == null) {
+                    results.add(new BulkTransitionResult(id, BulkTransitionResult.Outcome.NOT_FOUND, null));
+                } else if (!transition.isAllowedFrom(card.getStatus())) {
+                    results.add(new BulkTransitionResult(id, BulkTransitionResult.Outcome.SKIPPED_STATUS, card.getStatus()));
+                } else {
+                    CardStatus previousStatus = card.getStatus();
+                    card.setStatus(transition.getTarget());
+                    card.setVersion(card.getVersion() + 1);
+                    changed.add(card);
+                    applicationEventPublisher.publishEvent(new CardChangedEvent(card, previousStatus));
+                    results.add(new BulkTransitionResult(id, BulkTransitionResult.Outcome.CHANGED, card.getStatus()));
+                }
+            }
+            publishTransitions(transition, changed);
+        }
+        return results;
+    }
+
+    /**
+     * Queue the event matching a transition, as the single-card methods do.
+     * @param transition The transition that was applied.
+     * @param card The card after the transition.
+     */
+    private void publishTransition(CardTransition transition, Card card) {
+        switch (transition) {
+            case ACTIVATE -> cardEventPublisher.sendCardActivateMessage(card);
+            case BLOCK, CANCEL -> cardEventPublisher.sendCardBlockMessage(card);
+            case UNBLOCK -> cardEventPublisher.sendCardUnblockMessage(card);
+            case REQUEST_BLOCK, REQUEST_UNBLOCK -> {
+                // Requests only await approval; no event is sent until the card is blocked or unblocked.
+            }
+        }
+    }
+
+    /**
+     * Queue the events matching a transition applied to many cards, as one outbox batch.
+     * @param transition The transition that was applied.
+     * @param cards The cards after the transition.
+     */
+    private void publishTransitions(CardTransition transition, List<Card> cards) {
+        switch (transition) {
+            case ACTIVATE -> cardEventPublisher.sendCardActivateMessages(cards);
+            case BLOCK, CANCEL -> cardEventPublisher.sendCardBlockMessages(cards);
+            case UNBLOCK -> cardEventPublisher.sendCardUnblockMessages(cards);
+            case REQUEST_BLOCK, REQUEST_UNBLOCK -> {
+                // Requests only await approval; no event is sent until the card is blocked or unblocked.
+            }
         }
     }
 
@@ -189,56 +400,138 @@ public class CardServiceImpl implements CardsService {
      * @return A list of non-active cards.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Card> getAllNonActiveCards() {
         logger.debug("Fetching all non-active cards");
-        return cardRepository.findByStatusNot(CardStatus.ACTIVE);
+        return cardRepository.findByStatusIn(NON_ACTIVE_STATUSES);
     }
 
     /**
-     * Scheduled task to automatically expire cards.
+     * Get summaries of all cards except those with status ACTIVE.
+     * @return A list of non-active card summaries.
      */
-    @Scheduled(fixedRate = 600000)
-    public void expireCards() {
-        logger.debug("Expiring cards");
-        List<Card> activeCards = cardRepository.findByStatus(CardStatus.ACTIVE);
-        for (Card card : activeCards) {
-            if (card.getExpiryDate().isBefore(LocalDate.now())) {
-                card.setStatus(CardStatus.EXPIRED);
-                Card expiredCard = cardRepository.save(card);
-                cardEventPublisher.sendCardExpireMessage(expiredCard);
-            }
+    @Override
+    @Transactional(readOnly = true)
+    public List<CardSummary> getNonActiveCardSummaries() {
+        logger.debug("Fetching summaries of all non-active cards");
+        return cardRepository.findSummariesByStatusIn(NON_ACTIVE_STATUSES);
+    }
+
+    /**
+     * Get one page of non-active cards, using the card ID as keyset cursor.
+     * @param statuses The non-active statuses to include, or null/empty for all of them.
+     * @param afterId Only cards with an ID greater than this are returned; null for the first page.
+     * @param limit The maximum number of cards to return.
+     * @return The page of cards and the cursor for the next page.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CardPage getNonActiveCardsPage(Set<CardStatus> statuses, Long afterId, int limit) {
+        logger.debug("Fetching page of non-active cards after ID: {}", afterId);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<Card> cards = cardRepository.findPageByStatusIn(nonActiveStatuses(statuses),
+                afterId == null ? 0L : afterId, PageRequest.ofSize(limit));
+        Long nextCursor = cards.size() == limit ? cards.get(cards.size() - 1).getId() : null;
+        return new CardPage(cards, nextCursor);
+    }
+
+    /**
+     * Stream all non-active cards to a consumer through a forward-only database cursor.
+     * Each card is detached once consumed, so memory use does not grow with the result size.
+     * @param statuses The non-active statuses to include, or null/empty for all of them.
+     * @param consumer Receives the cards in ID order.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamNonActiveCards(Set<CardStatus> statuses, Consumer<Card> consumer) {
+        logger.debug("Streaming non-active cards");
+        try (Stream<Card> cards = cardRepository.streamByStatusIn(nonActiveStatuses(statuses))) {
+            cards.forEach(card -> {
+                consumer.accept(card);
+                entityManager.detach(card);
+            });
+        }
+    }
+
+    /**
+     * Validate a status filter for the non-active card listings.
+     * @param statuses The requested statuses, or null/empty for all non-active statuses.
+     * @return The statuses to query.
+     */
+    private Set<CardStatus> nonActiveStatuses(Set<CardStatus> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return NON_ACTIVE_STATUSES;
+        }
+        if (statuses.contains(CardStatus.ACTIVE)) {
+            throw new IllegalArgumentException("Status filter may only contain non-active statuses");
         }
+        return statuses;
     }
 
     /**
-     * Get card by ID.
+     * Get card by ID, served from the near cache when possible. A miss is read from a replica
+     * unless the card was written recently.
      * @param cardId The ID of the card to retrieve.
      * @return The card details.
      */
     @Override
     public Card getCardById(Long cardId) {
         logger.debug("Fetching card by ID: {}", cardId);
-        return cardRepository.findById(cardId)
-                .orElseThrow(() -> new IllegalStateException("Card not found"));
+        Card card = cardCache.get(cardId,
+                id -> readYourWrites.card(id, () -> cardRepository.findById(id).orElse(null)));
+        if (card == null) {
+            throw new IllegalStateException("Card not found");
+        }
+        return card;
     }
 
     /**
-     * Get all cards by user ID.
+     * Get the version of a card for answering conditional requests. The version is read with a
+     * primary-key query rather than from the near cache, which can lag a change made on another
+     * instance; like other reads it goes to a replica unless the card was written recently.
+     * @param cardId The ID of the card.
+     * @return The card's version, or null if the card does not exist.
+     */
+    @Override
+    public Long getCardVersion(Long cardId) {
+        return readYourWrites.card(cardId, () -> cardRepository.findVersionById(cardId).orElse(null));
+    }
+
+    /**
+     * Get the aggregate version of a user's cards for answering conditional requests. The version
+     * is read with an aggregate over the user_id index rather than from the per-user cache, which
+     * can lag a change made on another instance.
+     * @param userId The ID of the user.
+     * @return The aggregate version, 0 if the user has no cards.
+     */
+    @Override
+    public Long getUserCardsVersion(Long userId) {
+        return readYourWrites.user(userId, () -> cardRepository.findCardsVersionByUserId(userId));
+    }
+
+    /**
+     * Get all cards by user ID, served from the per-user cache when possible. A miss is read from
+     * a replica unless one of the user's cards was written recently.
      * @param userId The ID of the user whose cards are to be retrieved.
      * @return A list of cards belonging to the user.
      */
     @Override
     public List<Card> getCardsByUserId(Long userId) {
         logger.debug("Fetching cards by user ID: {}", userId);
-        return cardRepository.findByUserId(userId);
+        return userCardsCache.get(userId, id -> readYourWrites.user(id, () -> cardRepository.findByUserId(id)));
     }
 
     /**
-     * Helper function to generate a card number.
-     * @return A randomly generated card number.
+     * Get summaries of all cards of a user.
+     * @param userId The ID of the user whose cards are to be retrieved.
+     * @return A list of card summaries belonging to the user.
      */
-    private String generateCardNumber() {
-        Random random = new Random();
-        return String.format("4%015d", random.nextLong(1000000000000000L));
+    @Override
+    @Transactional(readOnly = true)
+    public List<CardSummary> getCardSummariesByUserId(Long userId) {
+        logger.debug("Fetching card summaries by user ID: {}", userId);
+        return cardRepository.findSummariesByUserId(userId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,13 @@
+-- Cards table as originally created by Hibernate. Existing databases are baselined at this version.
+CREATE TABLE cards (
+    id               BIGINT         NOT NULL AUTO_INCREMENT,
+    card_number      VARCHAR(255),
+    card_holder_name VARCHAR(255),
+    card_type        VARCHAR(32),
+    credit_limit     DECIMAL(38, 2),
+    available_limit  DECIMAL(38, 2),
+    expiry_date      DATE,
+    user_id          BIGINT,
+    status           VARCHAR(32),
+    PRIMARY KEY (id)
+);
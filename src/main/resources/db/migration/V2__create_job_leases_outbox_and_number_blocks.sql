@@ -0,0 +1,21 @@
+CREATE TABLE job_leases (
+    name        VARCHAR(100) NOT NULL,
+    owner       VARCHAR(100) NOT NULL,
+    lease_until DATETIME(6)  NOT NULL,
+    PRIMARY KEY (name)
+);
+
+CREATE TABLE card_outbox (
+    id         BIGINT      NOT NULL AUTO_INCREMENT,
+    card_id    BIGINT,
+    event_type VARCHAR(50) NOT NULL,
+    payload    LONGTEXT    NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE card_number_blocks (
+    bin        VARCHAR(8) NOT NULL,
+    next_block BIGINT     NOT NULL,
+    PRIMARY KEY (bin)
+);
@@ -0,0 +1,19 @@
+-- Per-user card lists.
+CREATE INDEX idx_cards_user_id ON cards (user_id);
+
+-- Status lookups and the expiry job (status = 'ACTIVE' AND expiry_date < ?).
+CREATE INDEX idx_cards_status_expiry_date ON cards (status, expiry_date);
+
+-- Card numbers must never repeat, but the old random generator may have issued a number twice.
+-- Those cards are kept: every card after the first with a number records its own ID here, so the
+-- unique index below tolerates them, while new cards (0) must have a number no other card has.
+ALTER TABLE cards ADD COLUMN card_number_duplicate BIGINT NOT NULL DEFAULT 0;
+
+-- DISTINCT keeps MySQL from merging the derived table, which it cannot read while updating cards.
+UPDATE cards SET card_number_duplicate = id
+WHERE id IN (SELECT id FROM (
+    SELECT DISTINCT later.id FROM cards later
+    JOIN cards earlier ON earlier.card_number = later.card_number AND earlier.id < later.id
+) duplicates);
+
+CREATE UNIQUE INDEX uk_cards_card_number ON cards (card_number, card_number_duplicate);
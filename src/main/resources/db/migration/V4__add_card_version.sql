@@ -0,0 +1,2 @@
+-- Optimistic concurrency for card transitions.
+ALTER TABLE cards ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
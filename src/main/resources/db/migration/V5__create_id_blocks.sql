@@ -0,0 +1,10 @@
+-- Pooled card ID allocation: each instance reserves a block of IDs with one update, so card
+-- inserts no longer depend on AUTO_INCREMENT and can be batched. The block size must match
+-- the allocationSize of the card ID generator. Blocks start past the existing cards.
+CREATE TABLE id_blocks (
+    sequence_name VARCHAR(64) NOT NULL,
+    next_val      BIGINT      NOT NULL,
+    PRIMARY KEY (sequence_name)
+);
+
+INSERT INTO id_blocks (sequence_name, next_val) SELECT 'cards', COALESCE(MAX(id), 0) + 1000 FROM cards;
@@ -0,0 +1,15 @@
+-- Responses recorded by idempotency key, shared by all instances. A row without a status is a
+-- request still in progress; locked_until lets another instance take it over if its owner died.
+CREATE TABLE idempotency_keys (
+    caller          VARCHAR(255) NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    fingerprint     CHAR(64)     NOT NULL,
+    status          INT,
+    content_type    VARCHAR(255),
+    body            LONGBLOB,
+    locked_until    DATETIME(6)  NOT NULL,
+    expires_at      DATETIME(6)  NOT NULL,
+    PRIMARY KEY (caller, idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
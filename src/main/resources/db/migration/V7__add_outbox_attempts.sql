@@ -0,0 +1,7 @@
+-- Rows that keep failing permanently (a payload that cannot be read, a record the broker rejects)
+-- are parked after cards.outbox.max-attempts instead of holding back their card's later events.
+ALTER TABLE card_outbox ADD COLUMN attempts INT NOT NULL DEFAULT 0;
+ALTER TABLE card_outbox ADD COLUMN parked_at DATETIME(6);
+
+-- The relay reads the oldest rows that are not parked.
+CREATE INDEX idx_card_outbox_parked_at ON card_outbox (parked_at, id);
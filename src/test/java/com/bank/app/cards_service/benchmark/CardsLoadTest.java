@@ -0,0 +1,314 @@
+package com.bank.app.cards_service.benchmark;
+
+import com.bank.app.cards_service.CardsServiceApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Offline load test. Starts an embedded Kafka broker, boots {@link CardsServiceApplication} with the
+ * {@code loadtest} profile (in-memory H2 through the Flyway migrations, no config server or Eureka)
+ * and drives a mix of HTTP requests at a fixed target rate.
+ * <p>
+ * Requests are scheduled open-loop, and each latency is measured from the time its request was due,
+ * so a slow service shows up as latency instead of quietly lowering the request rate. Settings:
+ * <ul>
+ *   <li>{@code -Dload.rate} requests per second (default 200)</li>
+ *   <li>{@code -Dload.duration-s} measured seconds (default 60), after {@code -Dload.warmup-s} (default 10)</li>
+ *   <li>{@code -Dload.mix} relative weights (default {@code issue=10,activate=10,block=5,lookup=50,list=25})</li>
+ *   <li>{@code -Dload.users} distinct user IDs (default 1000)</li>
+ *   <li>{@code -Dload.max-in-flight} outstanding requests before the driver stalls (default 2000)</li>
+ * </ul>
+ * Reports throughput, errors and p50/p95/p99/max latency per endpoint.
+ * <pre>
+ * mvn -Ploadtest verify -DskipTests -Dload.rate=500
+ * </pre>
+ */
+public class CardsLoadTest {
+
+    enum Endpoint {
+        ISSUE("issue"), ACTIVATE("activate"), BLOCK("block"), LOOKUP("lookup"), LIST("list");
+
+        private final String key;
+
+        Endpoint(String key) {
+            this.key = key;
+        }
+    }
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final int users;
+
+    private final Queue<Long> pendingCards = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> activeCards = new ConcurrentLinkedQueue<>();
+    private final List<Long> allCards = new ArrayList<>();
+
+    private volatile Map<Endpoint, Stats> stats = newStats();
+
+    CardsLoadTest(String baseUrl, int users) {
+        this.baseUrl = baseUrl;
+        this.users = users;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.getInteger("load.rate", 200);
+        int durationSeconds = Integer.getInteger("load.duration-s", 60);
+        int warmupSeconds = Integer.getInteger("load.warmup-s", 10);
+        int users = Integer.getInteger("load.users", 1000);
+        int maxInFlight = Integer.getInteger("load.max-in-flight", 2000);
+        Map<Endpoint, Integer> mix = parseMix(System.getProperty("load.mix",
+                "issue=10,activate=10,block=5,lookup=50,list=25"));
+
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaBroker(1);
+        broker.afterPropertiesSet();
+        ConfigurableApplicationContext context = null;
+        try {
+            String brokers = broker.getBrokersAsString();
+            context = new SpringApplicationBuilder(CardsServiceApplication.class)
+                    .profiles("loadtest")
+                    .properties("cards.kafka.bootstrap-servers=" + brokers, "spring.kafka.bootstrap-servers=" + brokers)
+                    .run(args);
+            String port = context.getEnvironment().getProperty("local.server.port");
+
+            CardsLoadTest loadTest = new CardsLoadTest("http://localhost:" + port + "/cards", users);
+            System.out.printf("rate=%d/s duration=%ds warmup=%ds users=%d mix=%s%n",
+                    rate, durationSeconds, warmupSeconds, users, mix);
+            loadTest.seed(Math.min(users, 500));
+            loadTest.run(rate, warmupSeconds, mix, maxInFlight);
+            loadTest.stats = newStats();
+            long elapsed = loadTest.run(rate, durationSeconds, mix, maxInFlight);
+            loadTest.report(elapsed);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            broker.destroy();
+        }
+    }
+
+    /**
+     * Issue cards and activate half of them, so the first activate, block and lookup requests have cards to use.
+     * @param cards The number of cards to issue.
+     */
+    void seed(int cards) throws IOException, InterruptedException {
+        for (int i = 0; i < cards; i++) {
+            HttpResponse<String> response = client.send(request(Endpoint.ISSUE), HttpResponse.BodyHandlers.ofString());
+            onResponse(Endpoint.ISSUE, response);
+        }
+        for (int i = 0; i < cards / 2; i++) {
+            Long cardId = pendingCards.poll();
+            HttpResponse<String> response = client.send(
+                    transitionRequest(cardId, "activate"), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 200) {
+                activeCards.add(cardId);
+            }
+        }
+    }
+
+    /**
+     * Send requests at the target rate for a while and wait for the outstanding ones.
+     * @return The elapsed time in nanoseconds.
+     */
+    long run(int rate, int seconds, Map<Endpoint, Integer> mix, int maxInFlight) throws InterruptedException {
+        Endpoint[] schedule = schedule(mix);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long total = (long) rate * seconds;
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long due = start + i * interval;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Endpoint endpoint = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+            inFlight.acquire();
+            send(endpoint, due).whenComplete((ignored, ex) -> inFlight.release());
+        }
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+        return System.nanoTime() - start;
+    }
+
+    private CompletableFuture<Void> send(Endpoint endpoint, long due) {
+        HttpRequest request;
+        Long cardId = null;
+        switch (endpoint) {
+            case ACTIVATE -> cardId = pendingCards.poll();
+            case BLOCK -> cardId = activeCards.poll();
+            default -> {
+            }
+        }
+        if ((endpoint == Endpoint.ACTIVATE || endpoint == Endpoint.BLOCK) && cardId == null) {
+            // Nothing left in the right state; look a card up instead.
+            endpoint = Endpoint.LOOKUP;
+        }
+        switch (endpoint) {
+            case ACTIVATE -> request = transitionRequest(cardId, "activate");
+            case BLOCK -> request = transitionRequest(cardId, "block");
+            default -> request = request(endpoint);
+        }
+        Endpoint sent = endpoint;
+        Long transitioned = cardId;
+        Stats endpointStats = stats.get(sent);
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, ex) -> {
+                    long latency = System.nanoTime() - due;
+                    boolean ok = ex == null && response.statusCode() < 300;
+                    endpointStats.record(latency, ok);
+                    if (ok) {
+                        onResponse(sent, response);
+                        if (sent == Endpoint.ACTIVATE) {
+                            activeCards.add(transitioned);
+                        }
+                    }
+                    return null;
+                });
+    }
+
+    private HttpRequest request(Endpoint endpoint) {
+        return switch (endpoint) {
+            case ISSUE -> {
+                long userId = randomUser();
+                yield HttpRequest.newBuilder(URI.create(baseUrl + "/request"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(String.format(
+                                "{\"cardHolderName\":\"Load Test\",\"cardType\":\"%s\",\"userId\":%d}",
+                                ThreadLocalRandom.current().nextBoolean() ? "CREDIT" : "DEBIT", userId)))
+                        .build();
+            }
+            case LOOKUP -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + randomCard()))
+                    .GET()
+                    .build();
+            case LIST -> HttpRequest.newBuilder(URI.create(baseUrl + "/user/" + randomUser())).GET().build();
+            default -> throw new IllegalArgumentException("Not a stateless endpoint: " + endpoint);
+        };
+    }
+
+    private HttpRequest transitionRequest(Long cardId, String action) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/" + cardId + "/" + action))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    private void onResponse(Endpoint endpoint, HttpResponse<String> response) {
+        if (endpoint != Endpoint.ISSUE || response.statusCode() != 201) {
+            return;
+        }
+        try {
+            long cardId = objectMapper.readTree(response.body()).get("id").asLong();
+            pendingCards.add(cardId);
+            synchronized (allCards) {
+                allCards.add(cardId);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unexpected issue response: " + response.body(), e);
+        }
+    }
+
+    private long randomUser() {
+        return ThreadLocalRandom.current().nextLong(1, users + 1);
+    }
+
+    private long randomCard() {
+        synchronized (allCards) {
+            return allCards.get(ThreadLocalRandom.current().nextInt(allCards.size()));
+        }
+    }
+
+    void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long requests = 0;
+        System.out.printf("%-9s %8s %8s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+            long[] latencies = entry.getValue().sorted();
+            if (latencies.length == 0) {
+                continue;
+            }
+            requests += latencies.length;
+            System.out.printf("%-9s %8d %8d %10.1f %9.1f %9.1f %9.1f %9.1f%n", entry.getKey().key,
+                    latencies.length, entry.getValue().errors.get(), latencies.length / seconds,
+                    percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.95) / 1e6,
+                    percentile(latencies, 0.99) / 1e6, latencies[latencies.length - 1] / 1e6);
+        }
+        System.out.printf("total     %8d %8s %10.1f%n", requests, "", requests / seconds);
+    }
+
+    private static Map<Endpoint, Stats> newStats() {
+        Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new Stats());
+        }
+        return stats;
+    }
+
+    static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            Endpoint endpoint = Arrays.stream(Endpoint.values())
+                    .filter(e -> e.key.equals(parts[0].trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint in load.mix: " + parts[0]));
+            weights.put(endpoint, Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    private static Endpoint[] schedule(Map<Endpoint, Integer> mix) {
+        List<Endpoint> schedule = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                schedule.add(endpoint);
+            }
+        });
+        return schedule.toArray(new Endpoint[0]);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    /** Latencies and errors of one endpoint. */
+    static class Stats {
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicLong errors = new AtomicLong();
+
+        void record(long latencyNanos, boolean ok) {
+            latencies.add(latencyNanos);
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        }
+
+        long[] sorted() {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.bank.app.cards_service.benchmark;
+
+import com.bank.app.cards_service.config.VirtualThreads;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the Tomcat worker pool model with the virtual thread execution mode for request handlers
+ * that spend most of their time blocked on MySQL and Kafka.
+ * <p>
+ * Each simulated request blocks for {@code -Dlatency-ms} (default 20) and burns a little CPU, and
+ * {@code -Dconcurrency} (default 2000) clients keep requests in flight until {@code -Drequests}
+ * (default 50000) have completed. The platform mode uses {@code -Dpool-size} (default 200, Tomcat's
+ * max threads) workers. Reports throughput and p50/p99 latency including queueing time.
+ * Virtual mode needs Java 21; on older JVMs it is reported as unavailable and only the platform
+ * mode is measured, so the comparison has to be run on a Java 21 JVM:
+ * <pre>
+ * mvn -Pjava21 test-compile
+ * java -cp target/classes:target/test-classes com.bank.app.cards_service.benchmark.ExecutionModeBenchmark
+ * </pre>
+ */
+public class ExecutionModeBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int concurrency = Integer.getInteger("concurrency", 2000);
+        int requests = Integer.getInteger("requests", 50000);
+        long latencyMs = Long.getLong("latency-ms", 20);
+        int poolSize = Integer.getInteger("pool-size", 200);
+
+        System.out.printf("concurrency=%d requests=%d latency-ms=%d pool-size=%d%n",
+                concurrency, requests, latencyMs, poolSize);
+
+        ExecutorService platform = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>());
+        run("platform", platform, concurrency, requests, latencyMs);
+
+        if (VirtualThreads.isSupported()) {
+            run("virtual", VirtualThreads.newThreadPerTaskExecutor("bench-"), concurrency, requests, latencyMs);
+        } else {
+            System.out.printf("%-9s unavailable on Java %s, run on Java 21 to compare%n", "virtual",
+                    Runtime.version().feature());
+        }
+    }
+
+    private static void run(String mode, ExecutorService executor, int concurrency, int requests, long latencyMs)
+            throws InterruptedException {
+        // Warm up the executor and the JIT before measuring.
+        measure(executor, concurrency, Math.min(requests, 5000), latencyMs);
+        long[] latencies = new long[requests];
+        long elapsed = measure(executor, concurrency, requests, latencyMs, latencies);
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        Arrays.sort(latencies);
+        System.out.printf("%-9s throughput=%.0f req/s p50=%.1f ms p99=%.1f ms%n", mode,
+                requests * 1e9 / elapsed, percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6);
+    }
+
+    private static void measure(ExecutorService executor, int concurrency, int requests, long latencyMs)
+            throws InterruptedException {
+        measure(executor, concurrency, requests, latencyMs, new long[requests]);
+    }
+
+    private static long measure(ExecutorService executor, int concurrency, int requests, long latencyMs,
+                                long[] latencies) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            int request = i;
+            long submitted = System.nanoTime();
+            executor.execute(() -> {
+                handle(latencyMs);
+                latencies[request] = System.nanoTime() - submitted;
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * A request handler: a little CPU work around a blocking wait on the database and broker.
+     * @param latencyMs How long the handler blocks.
+     */
+    private static void handle(long latencyMs) {
+        long sum = 0;
+        for (int i = 0; i < 2_000; i++) {
+            sum += i * 31L;
+        }
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(latencyMs) + (sum & 1));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
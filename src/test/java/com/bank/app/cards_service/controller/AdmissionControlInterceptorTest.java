@@ -0,0 +1,119 @@
+package com.bank.app.cards_service.controller;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdmissionControlInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+    private final AdmissionControlInterceptor interceptor =
+            new AdmissionControlInterceptor(meterRegistry, () -> pool, 3, 1, 2, 5, "X-Gateway-User", false);
+
+    private HandlerMethod handler(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return new HandlerMethod(mock(CardController.class), CardController.class.getMethod(name, parameterTypes));
+    }
+
+    private MockHttpServletRequest userRequest(long userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cards/user/" + userId);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("userId", String.valueOf(userId)));
+        // Behind the gateway every user arrives from the same address.
+        request.setRemoteAddr("10.0.0.1");
+        return request;
+    }
+
+    @Test
+    void testRejectsCallerOverItsLimitUntilARequestCompletes() throws Exception {
+        HandlerMethod handler = handler("getCardsByUserId", Long.class, List.class);
+        MockHttpServletRequest first = userRequest(1);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), handler));
+        assertFalse(interceptor.preHandle(userRequest(1), rejected, handler));
+        assertTrue(interceptor.preHandle(userRequest(2), new MockHttpServletResponse(), handler));
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(1.0, meterRegistry.get("cards.admission.rejected")
+                .tags("endpoint", "getCardsByUserId", "reason", "user").counter().count());
+
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), handler, null);
+        assertTrue(interceptor.preHandle(userRequest(1), new MockHttpServletResponse(), handler));
+    }
+
+    @Test
+    void testGatewayUserHeaderTakesPrecedenceOverThePath() throws Exception {
+        HandlerMethod handler = handler("getCardsByUserId", Long.class, List.class);
+        MockHttpServletRequest first = userRequest(1);
+        first.addHeader("X-Gateway-User", "alice");
+        MockHttpServletRequest second = userRequest(2);
+        second.addHeader("X-Gateway-User", "alice");
+
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), handler));
+        assertFalse(interceptor.preHandle(second, new MockHttpServletResponse(), handler));
+    }
+
+    @Test
+    void testUserEntryIsRemovedOnlyWhenItsLastRequestCompletes() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionControlInterceptor twoPerUser =
+                new AdmissionControlInterceptor(registry, () -> pool, 10, 2, 10, 5, null, false);
+        HandlerMethod handler = handler("getCardsByUserId", Long.class, List.class);
+        MockHttpServletRequest first = userRequest(1);
+        MockHttpServletRequest second = userRequest(1);
+        twoPerUser.preHandle(first, new MockHttpServletResponse(), handler);
+        twoPerUser.preHandle(second, new MockHttpServletResponse(), handler);
+
+        twoPerUser.afterCompletion(first, new MockHttpServletResponse(), handler, null);
+        assertEquals(1.0, registry.get("cards.admission.users").gauge().value());
+        assertTrue(twoPerUser.preHandle(userRequest(1), new MockHttpServletResponse(), handler));
+        assertFalse(twoPerUser.preHandle(userRequest(1), new MockHttpServletResponse(), handler));
+
+        twoPerUser.afterCompletion(second, new MockHttpServletResponse(), handler, null);
+        assertEquals(1.0, registry.get("cards.admission.users").gauge().value());
+    }
+
+    @Test
+    void testRequestsWithoutAUserAreNotLimitedPerAddressByDefault() throws Exception {
+        HandlerMethod handler = handler("getCardById", Long.class, List.class);
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/cards/1");
+        MockHttpServletRequest second = new MockHttpServletRequest("GET", "/cards/2");
+
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), handler));
+        assertTrue(interceptor.preHandle(second, new MockHttpServletResponse(), handler));
+    }
+
+    @Test
+    void testRejectsEndpointOverItsLimit() throws Exception {
+        HandlerMethod handler = handler("getCardsByUserId", Long.class, List.class);
+        interceptor.preHandle(userRequest(1), new MockHttpServletResponse(), handler);
+        interceptor.preHandle(userRequest(2), new MockHttpServletResponse(), handler);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(userRequest(3), rejected, handler));
+        assertEquals(429, rejected.getStatus());
+        assertTrue(interceptor.preHandle(userRequest(3), new MockHttpServletResponse(), handler("getCardById", Long.class, List.class)));
+        assertEquals(3.0, meterRegistry.get("cards.admission.in-flight").gauge().value());
+    }
+
+    @Test
+    void testRejectsWithServiceUnavailableWhileDatabasePoolIsSaturated() throws Exception {
+        when(pool.getThreadsAwaitingConnection()).thenReturn(5);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(userRequest(1), rejected, handler("getCardsByUserId", Long.class, List.class)));
+        assertEquals(503, rejected.getStatus());
+        assertEquals(0.0, meterRegistry.get("cards.admission.in-flight").gauge().value());
+    }
+}
@@ -0,0 +1,86 @@
+package com.bank.app.cards_service.controller;
+
+import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.service.CardEventHub;
+import com.bank.app.cards_service.service.impl.BulkIssuanceJob;
+import com.bank.app.cards_service.service.impl.CardServiceImpl;
+import com.bank.core.entity.CardStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class CardControllerETagTest {
+
+    private final CardServiceImpl cardService = mock(CardServiceImpl.class);
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new CardController(cardService, mock(BulkIssuanceJob.class), mock(CardEventHub.class), new ObjectMapper()))
+            .build();
+
+    private static Card card(long id, long version) {
+        return Card.builder().id(id).userId(7L).status(CardStatus.ACTIVE).version(version).build();
+    }
+
+    @Test
+    void testCardResponseCarriesVersionETag() throws Exception {
+        when(cardService.getCardById(1L)).thenReturn(card(1L, 3L));
+
+        mockMvc.perform(get("/cards/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.id").value(1));
+    }
+
+    @Test
+    void testCachedVersionAnswersNotModifiedWithoutLoading() throws Exception {
+        when(cardService.getCardVersion(1L)).thenReturn(3L);
+
+        mockMvc.perform(get("/cards/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+        verify(cardService, never()).getCardById(anyLong());
+    }
+
+    @Test
+    void testLoadedVersionAnswersNotModifiedWhenNotCached() throws Exception {
+        when(cardService.getCardById(1L)).thenReturn(card(1L, 3L));
+
+        mockMvc.perform(get("/cards/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testChangedCardIsReturnedInFull() throws Exception {
+        when(cardService.getCardVersion(1L)).thenReturn(4L);
+        when(cardService.getCardById(1L)).thenReturn(card(1L, 4L));
+
+        mockMvc.perform(get("/cards/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    void testUserCardsETagIsAggregateVersion() throws Exception {
+        when(cardService.getCardsByUserId(7L)).thenReturn(List.of(card(1L, 3L), card(2L, 0L)));
+
+        mockMvc.perform(get("/cards/user/7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""));
+
+        when(cardService.getUserCardsVersion(7L)).thenReturn(5L);
+
+        mockMvc.perform(get("/cards/user/7").header(HttpHeaders.IF_NONE_MATCH, "\"5\""))
+                .andExpect(status().isNotModified());
+        verify(cardService, times(1)).getCardsByUserId(7L);
+    }
+}
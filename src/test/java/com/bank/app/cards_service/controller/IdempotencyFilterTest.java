@@ -0,0 +1,125 @@
+package com.bank.app.cards_service.controller;
+
+import com.bank.app.cards_service.service.IdempotencyStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyFilterTest {
+
+    private static final DriverManagerDataSource DATA_SOURCE = new DriverManagerDataSource(
+            "jdbc:h2:mem:cards-idempotency;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(DATA_SOURCE);
+    private final IdempotencyStore store = new IdempotencyStore(jdbcTemplate, meterRegistry, 60000, 1000, 60000);
+    private final IdempotencyFilter filter = new IdempotencyFilter(store);
+    private final AtomicInteger handled = new AtomicInteger();
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure().dataSource(DATA_SOURCE).load().migrate();
+    }
+
+    @BeforeEach
+    void clear() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys");
+    }
+
+    private MockHttpServletResponse perform(String method, String uri, String key, String body, int status)
+            throws Exception {
+        return perform("10.0.0.1", method, uri, key, body, status);
+    }
+
+    private MockHttpServletResponse perform(String address, String method, String uri, String key, String body,
+                                            int status) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(address);
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.HEADER, key);
+        }
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (req, res) -> {
+            req.getInputStream().readAllBytes();
+            ((HttpServletResponse) res).setStatus(status);
+            res.setContentType("application/json");
+            res.getWriter().write("{\"id\":" + handled.incrementAndGet() + "}");
+        };
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @Test
+    void testRepeatedRequestReplaysStoredResponse() throws Exception {
+        MockHttpServletResponse first = perform("POST", "/cards/request", "key-1", "{\"userId\":1}", 201);
+        MockHttpServletResponse second = perform("POST", "/cards/request", "key-1", "{\"userId\":1}", 201);
+
+        assertEquals(1, handled.get());
+        assertEquals(201, second.getStatus());
+        assertEquals(first.getContentAsString(), second.getContentAsString());
+        assertEquals("true", second.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(1.0, meterRegistry.get("cards.idempotency.requests").tag("outcome", "hit").counter().count());
+    }
+
+    @Test
+    void testKeysAreScopedToTheCaller() throws Exception {
+        perform("10.0.0.1", "POST", "/cards/request", "key-4", "{\"userId\":1}", 201);
+        MockHttpServletResponse other = perform("10.0.0.2", "POST", "/cards/request", "key-4", "{\"userId\":1}", 201);
+
+        assertEquals(2, handled.get());
+        assertNull(other.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void testResponseIsReplayedByAnotherInstance() throws Exception {
+        perform("POST", "/cards/request", "key-5", "{\"userId\":1}", 201);
+        IdempotencyFilter otherInstance = new IdempotencyFilter(
+                new IdempotencyStore(jdbcTemplate, meterRegistry, 60000, 1000, 60000));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/cards/request");
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader(IdempotencyFilter.HEADER, "key-5");
+        request.setContent("{\"userId\":1}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        otherInstance.doFilter(request, response, (req, res) -> handled.incrementAndGet());
+
+        assertEquals(1, handled.get());
+        assertEquals(201, response.getStatus());
+        assertEquals("{\"id\":1}", response.getContentAsString());
+    }
+
+    @Test
+    void testKeyReusedForDifferentRequestIsRejected() throws Exception {
+        perform("PUT", "/cards/1/block", "key-2", "", 200);
+        MockHttpServletResponse other = perform("PUT", "/cards/2/block", "key-2", "", 200);
+
+        assertEquals(1, handled.get());
+        assertEquals(422, other.getStatus());
+    }
+
+    @Test
+    void testServerErrorsAndRequestsWithoutKeyAreNotDeduplicated() throws Exception {
+        perform("PUT", "/cards/1/activate", "key-3", "", 500);
+        MockHttpServletResponse retry = perform("PUT", "/cards/1/activate", "key-3", "", 200);
+        perform("PUT", "/cards/1/activate", null, "", 200);
+        perform("PUT", "/cards/1/activate", null, "", 200);
+
+        assertEquals(4, handled.get());
+        assertEquals(200, retry.getStatus());
+        assertNull(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+}
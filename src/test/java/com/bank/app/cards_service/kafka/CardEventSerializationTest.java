@@ -0,0 +1,100 @@
+package com.bank.app.cards_service.kafka;
+
+import com.bank.core.entity.CardNotification;
+import com.bank.core.entity.CardStatus;
+import com.bank.core.entity.CardType;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardEventSerializationTest {
+
+    private static final String TOPIC = "card-service-topic";
+
+    private static CardNotification notification() {
+        CardNotification cardNotification = new CardNotification();
+        cardNotification.setId(7L);
+        cardNotification.setCardNumber("4000001234567899");
+        cardNotification.setCardHolderName("Jane Doe");
+        cardNotification.setCardType(CardType.CREDIT);
+        cardNotification.setCreditLimit(new BigDecimal("25000"));
+        cardNotification.setAvailableLimit(new BigDecimal("1250.50"));
+        cardNotification.setExpiryDate(LocalDate.of(2035, 1, 31));
+        cardNotification.setUserId(3L);
+        cardNotification.setStatus(CardStatus.BLOCKED);
+        cardNotification.setMessage("Card block Successfully");
+        return cardNotification;
+    }
+
+    private static CardEventSerializer serializer(String format) {
+        CardEventSerializer serializer = new CardEventSerializer();
+        serializer.configure(Map.of(CardEventSerializer.FORMAT_CONFIG, format), false);
+        return serializer;
+    }
+
+    @Test
+    void testAvroEncodingFollowsTheSchema() throws Exception {
+        byte[] data = CardNotificationAvroCodec.encode(notification());
+
+        GenericData genericData = new GenericData();
+        genericData.addLogicalTypeConversion(new org.apache.avro.Conversions.DecimalConversion());
+        GenericRecord record = new GenericDatumReader<GenericRecord>(CardNotificationAvroCodec.SCHEMA_V1,
+                CardNotificationAvroCodec.SCHEMA_V1, genericData).read(null, DecoderFactory.get().binaryDecoder(data, null));
+
+        assertEquals(7L, record.get("id"));
+        assertEquals("Jane Doe", record.get("cardHolderName").toString());
+        assertEquals(new BigDecimal("1250.50"), record.get("availableLimit"));
+        assertEquals((int) LocalDate.of(2035, 1, 31).toEpochDay(), record.get("expiryDate"));
+        assertEquals("BLOCKED", record.get("status").toString());
+    }
+
+    @Test
+    void testRoundTripsThroughEitherFormat() {
+        CardNotificationDeserializer deserializer = new CardNotificationDeserializer();
+        Map<String, CardEventSchema> formats = Map.of("json", CardEventSchema.JSON_V1, "avro", CardEventSchema.AVRO_V1);
+        for (Map.Entry<String, CardEventSchema> format : formats.entrySet()) {
+            RecordHeaders headers = new RecordHeaders();
+            byte[] data = serializer(format.getKey()).serialize(TOPIC, headers, notification());
+
+            CardNotification decoded = deserializer.deserialize(TOPIC, headers, data);
+
+            assertEquals(format.getValue().getId(),
+                    new String(headers.lastHeader(CardEventSchema.HEADER).value(), StandardCharsets.UTF_8));
+            assertEquals(7L, decoded.getId());
+            assertEquals(CardType.CREDIT, decoded.getCardType());
+            assertEquals(0, new BigDecimal("25000").compareTo(decoded.getCreditLimit()));
+            assertEquals(LocalDate.of(2035, 1, 31), decoded.getExpiryDate());
+            assertEquals("Card block Successfully", decoded.getMessage());
+        }
+    }
+
+    @Test
+    void testAvroIsSmallerThanJson() {
+        byte[] json = serializer("json").serialize(TOPIC, new RecordHeaders(), notification());
+        byte[] avro = serializer("avro").serialize(TOPIC, new RecordHeaders(), notification());
+
+        assertTrue(avro.length * 2 < json.length, "avro " + avro.length + " bytes, json " + json.length + " bytes");
+    }
+
+    @Test
+    void testNullFieldsAndUnknownSchemas() {
+        CardNotification empty = CardNotificationAvroCodec.decode(CardNotificationAvroCodec.encode(new CardNotification()));
+        assertNull(empty.getId());
+        assertNull(empty.getCreditLimit());
+
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(CardEventSchema.HEADER, "avro/card-notification/v9".getBytes(StandardCharsets.UTF_8));
+        assertThrows(org.apache.kafka.common.errors.SerializationException.class,
+                () -> new CardNotificationDeserializer().deserialize(TOPIC, headers, new byte[] {0}));
+    }
+}
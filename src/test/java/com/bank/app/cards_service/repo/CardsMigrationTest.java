@@ -0,0 +1,38 @@
+package com.bank.app.cards_service.repo;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the migrations against a database that already has cards, as left by the old random
+ * card number generator.
+ */
+class CardsMigrationTest {
+
+    @Test
+    void testMigrationKeepsDuplicateCardNumbersAndRejectsNewOnes() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:cards-migration;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).target("1").load().migrate();
+        jdbcTemplate.update("INSERT INTO cards (card_number, user_id, status) VALUES "
+                + "('4123456789012345', 1, 'ACTIVE'), ('4123456789012345', 2, 'ACTIVE'), "
+                + "('4123456789012345', 3, 'BLOCKED'), ('4999999999999999', 4, 'ACTIVE')");
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        assertEquals(List.of(1L, 2L, 3L), jdbcTemplate.queryForList(
+                "SELECT user_id FROM cards WHERE card_number = '4123456789012345' ORDER BY id", Long.class));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cards WHERE card_number_duplicate <> 0", Integer.class));
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "INSERT INTO cards (card_number, user_id, status) VALUES ('4999999999999999', 5, 'ACTIVE')"));
+    }
+}
@@ -0,0 +1,184 @@
+package com.bank.app.cards_service.repo;
+
+import com.bank.app.cards_service.dto.CardExpiry;
+import com.bank.app.cards_service.dto.CardSummary;
+import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.service.UserCardsCache;
+import com.bank.core.entity.CardStatus;
+import com.bank.core.entity.CardType;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the card queries against the Flyway schema: the SQL Hibernate generates for the repository
+ * methods must be planned on an index, and the constraints and conditional updates the service
+ * relies on must hold.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.bank.app.cards_service.repo.CardsRepositoryIndexTest$CapturedStatements")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CardsRepositoryIndexTest {
+    private static final Set<CardStatus> NON_ACTIVE = EnumSet.complementOf(EnumSet.of(CardStatus.ACTIVE));
+
+    /** Records the SQL Hibernate sends, so its plan can be checked. */
+    public static class CapturedStatements implements StatementInspector {
+        private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private CardsRepository cardsRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Run a repository query and explain the select on cards it generated. The statement is
+     * explained as prepared, without binding its parameters.
+     * @param query Calls the repository method.
+     * @return The plan, in lower case.
+     */
+    private String planOf(Runnable query) {
+        CapturedStatements.statements.clear();
+        query.run();
+        String sql = CapturedStatements.statements.stream()
+                .filter(statement -> statement.startsWith("select") && statement.contains(" from cards "))
+                .reduce((first, last) -> last)
+                .orElseThrow(() -> new AssertionError("No query on cards in " + CapturedStatements.statements));
+        return jdbcTemplate.query(connection -> connection.prepareStatement("EXPLAIN " + sql),
+                (ResultSet resultSet) -> resultSet.next() ? resultSet.getString(1) : "").toLowerCase();
+    }
+
+    @Test
+    void testUserQueriesUseUserIndex() {
+        assertPlanUses("idx_cards_user_id", planOf(() -> cardsRepository.findByUserId(7L)));
+        assertPlanUses("idx_cards_user_id", planOf(() -> cardsRepository.findSummariesByUserId(7L)));
+        assertPlanUses("idx_cards_user_id", planOf(() -> cardsRepository.findCardsVersionByUserId(7L)));
+    }
+
+    @Test
+    void testStatusQueriesUseStatusIndex() {
+        assertPlanUses("idx_cards_status_expiry_date", planOf(() -> cardsRepository.findByStatus(CardStatus.BLOCKED)));
+        assertPlanUses("idx_cards_status_expiry_date", planOf(() -> cardsRepository.findByStatusIn(NON_ACTIVE)));
+        assertPlanUses("idx_cards_status_expiry_date",
+                planOf(() -> cardsRepository.findSummariesByStatusIn(NON_ACTIVE)));
+        assertPlanUses("idx_cards_status_expiry_date",
+                planOf(() -> cardsRepository.findPageByStatusIn(NON_ACTIVE, 0L, PageRequest.ofSize(100))));
+        assertPlanUses("idx_cards_status_expiry_date", planOf(() -> {
+            try (Stream<Card> cards = cardsRepository.streamByStatusIn(NON_ACTIVE)) {
+                cards.forEach(card -> { });
+            }
+        }));
+    }
+
+    @Test
+    void testExpiryQueriesUseStatusExpiryIndex() {
+        LocalDate today = LocalDate.now();
+        assertPlanUses("idx_cards_status_expiry_date", planOf(() -> cardsRepository.findExpiringChunk(
+                CardStatus.ACTIVE, today, 0L, 1_000_000L, PageRequest.ofSize(500))));
+        assertPlanUses("idx_cards_status_expiry_date", planOf(() -> cardsRepository.findExpiriesByStatus(
+                CardStatus.ACTIVE, 0L, PageRequest.ofSize(500))));
+    }
+
+    private static void assertPlanUses(String index, String plan) {
+        assertTrue(plan.contains(index), plan);
+    }
+
+    @Test
+    void testCardNumbersAreUnique() {
+        cardsRepository.saveAndFlush(Card.builder().cardNumber("4000001234567899").userId(1L)
+                .status(CardStatus.ACTIVE).build());
+
+        assertThrows(DataIntegrityViolationException.class, () -> cardsRepository.saveAndFlush(
+                Card.builder().cardNumber("4000001234567899").userId(2L).status(CardStatus.ACTIVE).build()));
+    }
+
+    @Test
+    void testTransitionOnlyAppliesToExpectedVersionAndStatus() {
+        Card card = cardsRepository.saveAndFlush(Card.builder().cardNumber("4000001234567881").userId(1L)
+                .status(CardStatus.ACTIVE).build());
+
+        assertEquals(0, cardsRepository.transition(card.getId(), card.getVersion(),
+                Set.of(CardStatus.BLOCKED), CardStatus.ACTIVE));
+        assertEquals(1, cardsRepository.transition(card.getId(), card.getVersion(),
+                Set.of(CardStatus.ACTIVE), CardStatus.BLOCKED));
+        assertEquals(0, cardsRepository.transition(card.getId(), card.getVersion(),
+                Set.of(CardStatus.BLOCKED), CardStatus.ACTIVE));
+        Card blocked = cardsRepository.findById(card.getId()).orElseThrow();
+        assertEquals(CardStatus.BLOCKED, blocked.getStatus());
+        assertEquals(card.getVersion() + 1, blocked.getVersion());
+    }
+
+    @Test
+    void testSummariesAreProjectedWithMaskedNumbers() {
+        cardsRepository.saveAndFlush(Card.builder().cardNumber("4000001234567873").userId(5L)
+                .cardType(CardType.DEBIT).status(CardStatus.BLOCKED).build());
+        cardsRepository.saveAndFlush(Card.builder().cardNumber("4000001234567865").userId(6L)
+                .cardType(CardType.CREDIT).status(CardStatus.ACTIVE).build());
+
+        List<CardSummary> userSummaries = cardsRepository.findSummariesByUserId(5L);
+        List<CardSummary> nonActiveSummaries = cardsRepository.findSummariesByStatusIn(NON_ACTIVE);
+
+        assertEquals(1, userSummaries.size());
+        assertEquals("************7873", userSummaries.get(0).getMaskedCardNumber());
+        assertEquals(CardType.DEBIT, userSummaries.get(0).getCardType());
+        assertEquals(CardStatus.BLOCKED, userSummaries.get(0).getStatus());
+        assertEquals(List.of(userSummaries.get(0).getId()),
+                nonActiveSummaries.stream().map(CardSummary::getId).toList());
+    }
+
+    @Test
+    void testExpiryIndexQueriesOnlySeeActiveCards() {
+        LocalDate today = LocalDate.now();
+        Card due = cardsRepository.saveAndFlush(Card.builder().cardNumber("4000001234567857").userId(7L)
+                .status(CardStatus.ACTIVE).expiryDate(today.minusDays(1)).build());
+        Card notDue = cardsRepository.saveAndFlush(Card.builder().cardNumber("4000001234567840").userId(7L)
+                .status(CardStatus.ACTIVE).expiryDate(today).build());
+        Card blocked = cardsRepository.saveAndFlush(Card.builder().cardNumber("4000001234567832").userId(7L)
+                .status(CardStatus.BLOCKED).expiryDate(today.minusDays(1)).build());
+
+        List<CardExpiry> expiries = cardsRepository.findExpiriesByStatus(CardStatus.ACTIVE, 0L, PageRequest.ofSize(10));
+        List<Card> expiring = cardsRepository.findExpiringByIds(
+                List.of(due.getId(), notDue.getId(), blocked.getId()), CardStatus.ACTIVE, today);
+
+        assertEquals(List.of(new CardExpiry(due.getId(), today.minusDays(1)), new CardExpiry(notDue.getId(), today)),
+                expiries);
+        assertEquals(List.of(due.getId()), expiring.stream().map(Card::getId).toList());
+    }
+
+    @Test
+    void testVersionQueriesMatchLoadedCards() {
+        Card card = cardsRepository.saveAndFlush(Card.builder().cardNumber("4000001234567824").userId(8L)
+                .status(CardStatus.ACTIVE).build());
+        cardsRepository.saveAndFlush(Card.builder().cardNumber("4000001234567816").userId(8L)
+                .status(CardStatus.BLOCKED).build());
+        cardsRepository.transition(card.getId(), card.getVersion(), Set.of(CardStatus.ACTIVE), CardStatus.BLOCKED);
+
+        assertEquals(card.getVersion() + 1, cardsRepository.findVersionById(card.getId()).orElseThrow());
+        assertTrue(cardsRepository.findVersionById(-1L).isEmpty());
+        assertEquals(UserCardsCache.versionOf(cardsRepository.findByUserId(8L)),
+                cardsRepository.findCardsVersionByUserId(8L));
+        assertEquals(0L, cardsRepository.findCardsVersionByUserId(9L));
+    }
+}
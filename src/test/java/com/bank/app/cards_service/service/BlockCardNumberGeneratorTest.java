@@ -0,0 +1,94 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.service.impl.BlockCardNumberGenerator;
+import com.bank.core.entity.CardType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class BlockCardNumberGeneratorTest {
+
+    @Mock
+    private CardNumberBlockAllocator allocator;
+
+    private final AtomicLong blocks = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(allocator.allocate(anyString())).thenAnswer(invocation -> blocks.getAndIncrement());
+    }
+
+    private static boolean isLuhnValid(String number) {
+        int sum = 0;
+        for (int i = 0; i < number.length(); i++) {
+            int digit = number.charAt(number.length() - 1 - i) - '0';
+            if (i % 2 == 1) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return sum % 10 == 0;
+    }
+
+    @Test
+    void testGeneratesLuhnValidNumbersFromConfiguredBins() {
+        BlockCardNumberGenerator generator = new BlockCardNumberGenerator(allocator, "412345", "498765", 100);
+
+        String credit = generator.generate(CardType.CREDIT);
+        String debit = generator.generate(CardType.DEBIT);
+
+        assertEquals(16, credit.length());
+        assertTrue(credit.startsWith("412345"));
+        assertTrue(debit.startsWith("498765"));
+        assertTrue(isLuhnValid(credit));
+        assertTrue(isLuhnValid(debit));
+        verify(allocator).allocate("412345");
+        verify(allocator).allocate("498765");
+    }
+
+    @Test
+    void testNumbersAreUniqueAcrossThreadsAndBlocks() throws Exception {
+        BlockCardNumberGenerator generator = new BlockCardNumberGenerator(allocator, "412345", "498765", 1000);
+        int threads = 16;
+        int perThread = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    String number = generator.generate(CardType.DEBIT);
+                    assertTrue(isLuhnValid(number), number);
+                    numbers.add(number);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perThread, numbers.size());
+        verify(allocator, times(threads * perThread / 1000)).allocate("498765");
+    }
+
+    @Test
+    void testRejectsInvalidBin() {
+        assertThrows(IllegalArgumentException.class, () -> new BlockCardNumberGenerator(allocator, "4123", "498765", 100));
+    }
+}
@@ -0,0 +1,103 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.dto.BulkIssueStatus;
+import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.service.impl.BulkIssuanceJob;
+import com.bank.core.entity.CardStatus;
+import com.bank.core.entity.CardType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs bulk issuance against the Flyway schema on H2, with the outbox relay idle so the queued
+ * events stay in the outbox.
+ */
+@SpringBootTest(properties = {
+        "cards.outbox.poll-interval-ms=3600000",
+        "cards.bulk.issue.chunk-size=1000",
+        "cards.bulk.issue.jdbc-batch-size=100",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"})
+class BulkIssuanceJobTest {
+
+    @Autowired
+    private BulkIssuanceJob bulkIssuanceJob;
+
+    @Autowired
+    private CardsService cardsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static List<Card> cards(long userId, int count) {
+        List<Card> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cards.add(Card.builder().userId(userId).cardHolderName("Campaign " + i)
+                    .cardType(i % 2 == 0 ? CardType.DEBIT : CardType.CREDIT).build());
+        }
+        return cards;
+    }
+
+    private BulkIssueStatus await(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        BulkIssueStatus status = bulkIssuanceJob.getStatus(jobId);
+        while (status.getState() == BulkIssueStatus.State.RUNNING && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+            status = bulkIssuanceJob.getStatus(jobId);
+        }
+        return status;
+    }
+
+    @Test
+    void testJobIssuesAllCardsAndQueuesTheirEvents() throws Exception {
+        BulkIssueStatus started = bulkIssuanceJob.submit(cards(8001L, 2500));
+
+        BulkIssueStatus finished = await(started.getJobId());
+
+        assertEquals(BulkIssueStatus.State.COMPLETED, finished.getState());
+        assertEquals(2500, finished.getIssued());
+        assertEquals(2500, jdbcTemplate.queryForObject(
+                "select count(distinct card_number) from cards where user_id = 8001 and status = ?",
+                Integer.class, CardStatus.PENDING_ACTIVATION.name()));
+        assertEquals(2500, jdbcTemplate.queryForObject(
+                "select count(*) from card_outbox o join cards c on c.id = o.card_id "
+                        + "where c.user_id = 8001 and o.event_type = 'Card Issued'", Integer.class));
+    }
+
+    @Test
+    void testChunkIsInsertedInJdbcBatches() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Card> issued = cardsService.issueCards(cards(8002L, 500));
+
+        assertEquals(500, issued.stream().map(Card::getId).distinct().count());
+        assertTrue(issued.stream().allMatch(card -> card.getVersion() == 0L));
+        assertTrue(statistics.getEntityInsertCount() >= 500);
+        // Five batched inserts of 100 plus the ID and card number block reservations, instead of a statement per card.
+        assertTrue(statistics.getPrepareStatementCount() < 20, "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testIncompleteCardsAreRejected() {
+        List<Card> cards = cards(8003L, 3);
+        cards.get(1).setCardType(null);
+
+        assertThrows(IllegalArgumentException.class, () -> bulkIssuanceJob.submit(cards));
+        assertThrows(IllegalArgumentException.class, () -> bulkIssuanceJob.submit(List.of()));
+    }
+}
@@ -0,0 +1,104 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.dto.CardInvalidationMessage;
+import com.bank.app.cards_service.entity.Card;
+import com.bank.core.entity.CardStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CardCacheInvalidatorTest {
+
+    @Mock
+    private CardCache cardCache;
+
+    @Mock
+    private UserCardsCache userCardsCache;
+
+    @Mock
+    private KafkaTemplate<String, Object> template;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CardCacheInvalidator cardCacheInvalidator = new CardCacheInvalidator();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(cardCacheInvalidator, "cardCache", cardCache);
+        ReflectionTestUtils.setField(cardCacheInvalidator, "userCardsCache", userCardsCache);
+        ReflectionTestUtils.setField(cardCacheInvalidator, "readYourWrites", new ReadYourWrites(false, 5000, 100));
+        ReflectionTestUtils.setField(cardCacheInvalidator, "template", template);
+        ReflectionTestUtils.setField(cardCacheInvalidator, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(cardCacheInvalidator, "invalidationEnabled", true);
+        ReflectionTestUtils.setField(cardCacheInvalidator, "queueSize", 1);
+        cardCacheInvalidator.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardCacheInvalidator.stop();
+    }
+
+    @Test
+    void testBroadcastDoesNotBlockAndDropsOnOverflow() throws Exception {
+        CountDownLatch broker = new CountDownLatch(1);
+        when(template.send(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            broker.await(5, TimeUnit.SECONDS);
+            return CompletableFuture.completedFuture(null);
+        });
+
+        for (long id = 1; id <= 3; id++) {
+            cardCacheInvalidator.onCardChanged(new CardChangedEvent(
+                    Card.builder().id(id).userId(7L).status(CardStatus.BLOCKED).version(1L).build(), CardStatus.ACTIVE));
+        }
+
+        verify(cardCache).invalidate(3L);
+        assertEquals(1.0, meterRegistry.get("cards.cache.invalidation.dropped").counter().count());
+        broker.countDown();
+        verify(template, timeout(5000).times(2)).send(anyString(), anyString(), any());
+    }
+
+    @Test
+    void testBulkIssueBroadcastsOncePerUser() {
+        when(template.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        ReflectionTestUtils.setField(cardCacheInvalidator, "queueSize", 10);
+        cardCacheInvalidator.stop();
+        cardCacheInvalidator.start();
+
+        cardCacheInvalidator.onCardsIssued(new CardsIssuedEvent(List.of(
+                Card.builder().id(1L).userId(7L).status(CardStatus.PENDING_ACTIVATION).build(),
+                Card.builder().id(2L).userId(7L).status(CardStatus.PENDING_ACTIVATION).build(),
+                Card.builder().id(3L).userId(8L).status(CardStatus.PENDING_ACTIVATION).build())));
+
+        verify(userCardsCache).evict(7L);
+        verify(userCardsCache).evict(8L);
+        verify(template, timeout(5000)).send(eq(CardCacheInvalidator.TOPIC), eq("7"),
+                argThat(message -> ((CardInvalidationMessage) message).getCardId() == null));
+        verify(template, timeout(5000)).send(eq(CardCacheInvalidator.TOPIC), eq("8"), any());
+        verify(template, after(100).times(2)).send(anyString(), anyString(), any());
+        verifyNoInteractions(cardCache);
+    }
+
+    @Test
+    void testUserInvalidationFromAnotherInstanceEvictsTheUsersCards() {
+        cardCacheInvalidator.onInvalidation(CardInvalidationMessage.builder().origin("other").userId(7L).build());
+
+        verify(userCardsCache).evict(7L);
+        verifyNoInteractions(cardCache);
+    }
+}
@@ -0,0 +1,63 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.entity.Card;
+import com.bank.core.entity.CardStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CardCache cardCache = new CardCache(meterRegistry, 100, 60000);
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CompletableFuture<Card> first = CompletableFuture.supplyAsync(() -> cardCache.get(1L, id -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            sleep();
+            return Card.builder().id(id).status(CardStatus.ACTIVE).build();
+        }));
+        loading.await(5, TimeUnit.SECONDS);
+        Card second = cardCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return Card.builder().id(id).build();
+        });
+
+        assertEquals(CardStatus.ACTIVE, first.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(CardStatus.ACTIVE, second.getStatus());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGetReturnsCopyAndInvalidateReloads() {
+        Card card = cardCache.get(1L, id -> Card.builder().id(id).status(CardStatus.ACTIVE).build());
+        card.setStatus(CardStatus.BLOCKED);
+
+        assertEquals(CardStatus.ACTIVE, cardCache.get(1L, id -> null).getStatus());
+
+        cardCache.invalidate(1L);
+
+        assertNull(cardCache.get(1L, id -> null));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "cards.by-id").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    private static void sleep() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.dto.CardStatusEvent;
+import com.bank.core.entity.CardStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardEventHubTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testSubscriberOnlyReceivesMatchingEvents() {
+        CardEventHub hub = new CardEventHub(meterRegistry, 16, 10, 60000, Runnable::run);
+        hub.subscribe(1L, null);
+        hub.subscribe(null, 5L);
+
+        hub.publish(event(5L, 2L, 1L));
+        hub.publish(event(6L, 1L, 1L));
+        hub.publish(event(7L, 3L, 1L));
+
+        assertEquals(2, meterRegistry.get("cards.stream.sent").counter().count());
+        assertEquals(2, meterRegistry.get("cards.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void testSlowSubscriberIsDropped() {
+        // Nothing drains the buffers, as if the client stopped reading.
+        CardEventHub hub = new CardEventHub(meterRegistry, 2, 10, 60000, task -> { });
+        hub.subscribe(1L, null);
+
+        for (long version = 1; version <= 3; version++) {
+            hub.publish(event(5L, 1L, version));
+        }
+
+        assertEquals(1, meterRegistry.get("cards.stream.dropped").tag("reason", "slow").counter().count());
+        assertEquals(0, meterRegistry.get("cards.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void testSubscribersAreLimited() {
+        CardEventHub hub = new CardEventHub(meterRegistry, 16, 1, 60000, Runnable::run);
+        hub.subscribe(null, null);
+
+        assertThrows(IllegalStateException.class, () -> hub.subscribe(1L, null));
+        assertEquals(1, meterRegistry.get("cards.stream.subscribers").gauge().value());
+    }
+
+    private static CardStatusEvent event(Long cardId, Long userId, Long version) {
+        return CardStatusEvent.builder()
+                .cardId(cardId)
+                .userId(userId)
+                .status(CardStatus.BLOCKED)
+                .previousStatus(CardStatus.ACTIVE)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.bank.app.cards_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CardEventSenderTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> template;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSendKeysRecordsByCardIdWithEventTypeHeader() throws Exception {
+        CardEventSender sender = new CardEventSender(template, meterRegistry, 10);
+        when(template.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        sender.send("Card Blocked", 42L, "payload").get(5, TimeUnit.SECONDS);
+
+        ArgumentCaptor<ProducerRecord<String, Object>> record = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(template).send(record.capture());
+        assertEquals("card-service-topic", record.getValue().topic());
+        assertEquals("42", record.getValue().key());
+        assertEquals("payload", record.getValue().value());
+        assertEquals("Card Blocked", new String(
+                record.getValue().headers().lastHeader(CardEventSender.EVENT_TYPE_HEADER).value(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFailedSendIsNotRetried() {
+        CardEventSender sender = new CardEventSender(template, meterRegistry, 10);
+        when(template.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("delivery timeout")));
+
+        CompletableFuture<?> result = assertDoesNotThrow(() -> sender.send("Card Blocked", 1L, "payload"));
+
+        assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        verify(template, times(1)).send(any(ProducerRecord.class));
+        assertEquals(1.0, meterRegistry.get("cards.kafka.publish.failed").tag("event.type", "Card Blocked")
+                .counter().count());
+        assertEquals(1, meterRegistry.get("cards.kafka.publish")
+                .tags("event.type", "Card Blocked", "outcome", "failure").timer().count());
+        assertEquals(0.0, meterRegistry.get("cards.kafka.publish.in-flight").gauge().value());
+    }
+
+    @Test
+    void testSendBlocksWhileInFlightLimitIsReached() throws Exception {
+        CardEventSender sender = new CardEventSender(template, meterRegistry, 1);
+        CompletableFuture<SendResult<String, Object>> pending = new CompletableFuture<>();
+        when(template.send(any(ProducerRecord.class)))
+                .thenReturn(pending)
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        sender.send("Card Issued", 1L, "first");
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {
+            try {
+                sender.send("Card Issued", 2L, "second");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(second.isDone());
+        assertEquals(1.0, meterRegistry.get("cards.kafka.publish.in-flight").gauge().value());
+
+        pending.complete(mock(SendResult.class));
+        second.get(5, TimeUnit.SECONDS);
+        verify(template, times(2)).send(any(ProducerRecord.class));
+    }
+}
@@ -0,0 +1,61 @@
+package com.bank.app.cards_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardExpiryIndexTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CardExpiryIndex index = new CardExpiryIndex(meterRegistry);
+
+    @Test
+    void testPollDueReturnsCardsExpiringBeforeTodayWithoutDuplicates() {
+        LocalDate today = LocalDate.of(2030, 6, 15);
+        for (long id = 100; id > 0; id--) {
+            index.add(id, today.minusDays(id % 3 + 1));
+        }
+        index.add(5L, today.minusDays(1));
+        index.add(200L, today);
+        index.add(300L, today.plusYears(5));
+
+        long[] due = index.pollDue(today);
+
+        assertEquals(100, due.length);
+        for (int i = 0; i < due.length; i++) {
+            assertEquals(i + 1, due[i]);
+        }
+        assertEquals(2, index.size());
+        assertEquals(today, index.earliestExpiryDate());
+        assertEquals(0, index.pollDue(today).length);
+        assertArrayEquals(new long[] {200L}, index.pollDue(today.plusDays(1)));
+        assertEquals(1.0, meterRegistry.get("cards.expiry.index.size").gauge().value());
+    }
+
+    @Test
+    void testCardsAreHeldOnceAndCanBeRemoved() {
+        LocalDate expiry = LocalDate.of(2030, 6, 15);
+        for (long id = 1; id <= 1000; id++) {
+            index.add(id, expiry);
+            index.add(id, expiry);
+        }
+        assertEquals(1000, index.size());
+
+        for (long id = 1; id <= 1000; id += 2) {
+            index.remove(id, expiry);
+        }
+        index.remove(2000L, expiry);
+        index.remove(2L, expiry.plusDays(1));
+
+        long[] due = index.pollDue(expiry.plusDays(1));
+        assertEquals(500, due.length);
+        for (int i = 0; i < due.length; i++) {
+            assertEquals(2L * (i + 1), due[i]);
+        }
+        assertEquals(0, index.size());
+        assertNull(index.earliestExpiryDate());
+    }
+}
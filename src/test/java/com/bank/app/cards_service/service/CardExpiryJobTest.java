@@ -0,0 +1,202 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.dto.CardExpiry;
+import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.repo.CardsRepository;
+import com.bank.app.cards_service.service.impl.CardExpiryJob;
+import com.bank.core.entity.CardStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CardExpiryJobTest {
+
+    @Mock
+    private CardsRepository cardRepository;
+
+    @Mock
+    private CardEventPublisher cardEventPublisher;
+
+    @Mock
+    private JobLeaseManager jobLeaseManager;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private CardExpiryIndex cardExpiryIndex = new CardExpiryIndex(new SimpleMeterRegistry());
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @InjectMocks
+    private CardExpiryJob cardExpiryJob;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(cardExpiryJob, "chunkSize", 2);
+        ReflectionTestUtils.setField(cardExpiryJob, "rangeSize", 100L);
+        ReflectionTestUtils.setField(cardExpiryJob, "leaseTtlMs", 60000L);
+        ReflectionTestUtils.setField(cardExpiryJob, "intervalMs", 600000L);
+        ReflectionTestUtils.setField(cardExpiryJob, "indexEnabled", true);
+        ReflectionTestUtils.setField(cardExpiryJob, "indexPageSize", 2);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    @Test
+    void testExpireCardsWalksChunksWithKeysetCursor() {
+        Card first = Card.builder().id(1L).status(CardStatus.ACTIVE).version(0L).build();
+        Card second = Card.builder().id(5L).status(CardStatus.ACTIVE).version(0L).build();
+        Card third = Card.builder().id(9L).status(CardStatus.ACTIVE).version(0L).build();
+
+        when(cardRepository.findMaxId()).thenReturn(9L);
+        when(jobLeaseManager.tryAcquire(eq("card-expiry:0"), any())).thenReturn(true);
+        when(cardRepository.findExpiringChunk(eq(CardStatus.ACTIVE), any(), eq(-1L), eq(100L), any()))
+                .thenReturn(List.of(first, second));
+        when(cardRepository.findExpiringChunk(eq(CardStatus.ACTIVE), any(), eq(5L), eq(100L), any()))
+                .thenReturn(List.of(third));
+
+        cardExpiryJob.expireCards();
+
+        verify(cardRepository).updateStatus(List.of(1L, 5L), CardStatus.ACTIVE, CardStatus.EXPIRED);
+        verify(cardRepository).updateStatus(List.of(9L), CardStatus.ACTIVE, CardStatus.EXPIRED);
+        verify(cardEventPublisher, times(3)).sendCardExpireMessage(any(Card.class));
+        verify(applicationEventPublisher, times(3)).publishEvent(any(CardChangedEvent.class));
+        // The finished range stays leased for the rest of the run instead of being released.
+        verify(jobLeaseManager, never()).release(anyString());
+        verify(jobLeaseManager).tryAcquire(eq("card-expiry:0"),
+                argThat(ttl -> ttl.compareTo(Duration.ofMinutes(9)) > 0));
+        assertEquals(1, meterRegistry.get("cards.expiry.run").timer().count());
+        assertEquals(3.0, meterRegistry.get("cards.expiry.expired").summary().totalAmount());
+    }
+
+    @Test
+    void testExpireCardsSkipsRangeLeasedByAnotherInstance() {
+        when(cardRepository.findMaxId()).thenReturn(9L);
+        when(jobLeaseManager.tryAcquire(eq("card-expiry:0"), any())).thenReturn(false);
+
+        cardExpiryJob.expireCards();
+
+        verify(cardRepository, never()).findExpiringChunk(any(), any(), anyLong(), anyLong(), any());
+        verify(jobLeaseManager, never()).release(anyString());
+    }
+
+    @Test
+    void testFailedRangeReleasesItsLease() {
+        when(cardRepository.findMaxId()).thenReturn(9L);
+        when(jobLeaseManager.tryAcquire(eq("card-expiry:0"), any())).thenReturn(true);
+        when(cardRepository.findExpiringChunk(any(), any(), anyLong(), anyLong(), any()))
+                .thenThrow(new IllegalStateException("database unavailable"));
+
+        assertThrows(IllegalStateException.class, () -> cardExpiryJob.expireCards());
+
+        verify(jobLeaseManager).release("card-expiry:0");
+    }
+
+    @Test
+    void testExpireCardsWithNoCards() {
+        when(cardRepository.findMaxId()).thenReturn(null);
+
+        cardExpiryJob.expireCards();
+
+        verify(cardRepository, never()).updateStatus(anyCollection(), any(), any());
+        verify(cardRepository, never()).findExpiringChunk(any(), any(), anyLong(), anyLong(), any());
+        verifyNoInteractions(jobLeaseManager);
+    }
+
+    @Test
+    void testExpireCardsStopsOnEmptyChunk() {
+        when(cardRepository.findMaxId()).thenReturn(3L);
+        when(jobLeaseManager.tryAcquire(anyString(), any())).thenReturn(true);
+        when(cardRepository.findExpiringChunk(any(), any(), anyLong(), anyLong(), any()))
+                .thenReturn(Collections.emptyList());
+
+        cardExpiryJob.expireCards();
+
+        verify(cardRepository, never()).updateStatus(anyCollection(), any(), any());
+        verify(cardEventPublisher, never()).sendCardExpireMessage(any(Card.class));
+    }
+
+    @Test
+    void testExpireDueExpiresOnlyDueCardsFromTheIndex() {
+        LocalDate today = LocalDate.now();
+        Card due = Card.builder().id(4L).status(CardStatus.ACTIVE).version(0L).expiryDate(today.minusDays(1)).build();
+        cardExpiryIndex.add(4L, today.minusDays(1));
+        cardExpiryIndex.add(8L, today);
+        when(cardRepository.findExpiringByIds(List.of(4L), CardStatus.ACTIVE, today)).thenReturn(List.of(due));
+
+        cardExpiryJob.expireDue();
+
+        verify(cardRepository).updateStatus(List.of(4L), CardStatus.ACTIVE, CardStatus.EXPIRED);
+        verify(cardEventPublisher).sendCardExpireMessage(due);
+        verify(cardRepository, never()).findExpiringChunk(any(), any(), anyLong(), anyLong(), any());
+        assertEquals(1, cardExpiryIndex.size());
+        assertEquals(today, cardExpiryIndex.earliestExpiryDate());
+    }
+
+    @Test
+    void testLoadIndexPagesThroughActiveCards() {
+        LocalDate expiry = LocalDate.now().plusYears(1);
+        when(cardRepository.findExpiriesByStatus(eq(CardStatus.ACTIVE), eq(0L), any()))
+                .thenReturn(List.of(new CardExpiry(1L, expiry), new CardExpiry(2L, expiry)));
+        when(cardRepository.findExpiriesByStatus(eq(CardStatus.ACTIVE), eq(2L), any()))
+                .thenReturn(List.of(new CardExpiry(3L, expiry.plusDays(1))));
+
+        cardExpiryJob.loadIndex();
+
+        assertEquals(3, cardExpiryIndex.size());
+        assertEquals(expiry, cardExpiryIndex.earliestExpiryDate());
+    }
+
+    @Test
+    void testActivatedCardIsAddedToTheIndex() {
+        Card card = Card.builder().id(6L).status(CardStatus.ACTIVE).expiryDate(LocalDate.now().plusYears(10)).build();
+
+        cardExpiryJob.onCardChanged(new CardChangedEvent(card, CardStatus.PENDING_ACTIVATION));
+        cardExpiryJob.onCardChanged(new CardChangedEvent(
+                card.toBuilder().id(7L).status(CardStatus.BLOCKED).build(), CardStatus.ACTIVE));
+
+        assertEquals(1, cardExpiryIndex.size());
+        verifyNoInteractions(taskScheduler);
+    }
+
+    @Test
+    void testCardLeavingActiveIsRemovedFromTheIndex() {
+        Card card = Card.builder().id(6L).status(CardStatus.ACTIVE).expiryDate(LocalDate.now().plusYears(10)).build();
+
+        cardExpiryJob.onCardChanged(new CardChangedEvent(card, CardStatus.PENDING_ACTIVATION));
+        cardExpiryJob.onCardChanged(new CardChangedEvent(card.toBuilder().status(CardStatus.BLOCKED).build(),
+                CardStatus.ACTIVE));
+        cardExpiryJob.onCardChanged(new CardChangedEvent(card, CardStatus.BLOCKED));
+        cardExpiryJob.onCardChanged(new CardChangedEvent(card, CardStatus.BLOCKED));
+
+        assertEquals(1, cardExpiryIndex.size());
+    }
+}
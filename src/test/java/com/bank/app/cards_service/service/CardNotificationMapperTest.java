@@ -0,0 +1,60 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.entity.Card;
+import com.bank.core.entity.CardNotification;
+import com.bank.core.entity.CardStatus;
+import com.bank.core.entity.CardType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanUtils;
+
+import java.beans.PropertyDescriptor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardNotificationMapperTest {
+
+    private final Card card = Card.builder()
+            .id(7L)
+            .cardNumber("4000001234567899")
+            .cardHolderName("Jane Doe")
+            .cardType(CardType.CREDIT)
+            .creditLimit(new BigDecimal("25000"))
+            .availableLimit(new BigDecimal("1250.50"))
+            .expiryDate(LocalDate.of(2035, 1, 31))
+            .userId(3L)
+            .status(CardStatus.BLOCKED)
+            .version(2L)
+            .build();
+
+    @Test
+    void testEveryNotificationFieldComesFromTheCard() {
+        for (PropertyDescriptor property : BeanUtils.getPropertyDescriptors(CardNotification.class)) {
+            if (property.getWriteMethod() == null || property.getName().equals("message")) {
+                continue;
+            }
+            PropertyDescriptor cardProperty = BeanUtils.getPropertyDescriptor(Card.class, property.getName());
+            assertNotNull(cardProperty, "Card has no property for notification field " + property.getName());
+            assertEquals(property.getPropertyType(), cardProperty.getPropertyType(), property.getName());
+        }
+    }
+
+    @Test
+    void testMapsTheSameFieldsAsPropertyCopy() throws Exception {
+        CardNotification expected = new CardNotification();
+        BeanUtils.copyProperties(card, expected);
+        expected.setMessage("Card Expired");
+
+        CardNotification mapped = CardNotificationMapper.toNotification(card, "Card Expired");
+
+        for (PropertyDescriptor property : BeanUtils.getPropertyDescriptors(CardNotification.class)) {
+            if (property.getReadMethod() == null || property.getName().equals("class")) {
+                continue;
+            }
+            Object value = property.getReadMethod().invoke(mapped);
+            assertNotNull(value, "Field not mapped: " + property.getName());
+            assertEquals(property.getReadMethod().invoke(expected), value, property.getName());
+        }
+    }
+}
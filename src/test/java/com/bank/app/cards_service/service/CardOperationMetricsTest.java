@@ -0,0 +1,54 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.exception.CardNotFoundException;
+import com.bank.app.cards_service.exception.CardStatusConflictException;
+import com.bank.core.entity.CardType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CardOperationMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CardsService target = mock(CardsService.class);
+    private CardsService cardsService;
+
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new CardOperationMetrics(meterRegistry));
+        cardsService = factory.getProxy();
+    }
+
+    @Test
+    void testTagsOperationOutcomeAndCardType() {
+        when(target.blockCard(1L)).thenReturn(Card.builder().id(1L).cardType(CardType.CREDIT).build());
+
+        cardsService.blockCard(1L);
+
+        assertEquals(1, meterRegistry.get(CardOperationMetrics.METRIC)
+                .tags("operation", "blockCard", "outcome", "success", "card.type", "CREDIT")
+                .timer().count());
+    }
+
+    @Test
+    void testRecordsFailureOutcomes() {
+        when(target.blockCard(1L)).thenThrow(new CardNotFoundException("Card not found with ID: 1"));
+        when(target.unblockCard(2L)).thenThrow(new CardStatusConflictException("Card is not blocked."));
+
+        assertThrows(CardNotFoundException.class, () -> cardsService.blockCard(1L));
+        assertThrows(CardStatusConflictException.class, () -> cardsService.unblockCard(2L));
+
+        assertEquals(1, meterRegistry.get(CardOperationMetrics.METRIC)
+                .tags("operation", "blockCard", "outcome", "not_found", "card.type", "none")
+                .timer().count());
+        assertEquals(1, meterRegistry.get(CardOperationMetrics.METRIC)
+                .tags("operation", "unblockCard", "outcome", "conflict")
+                .timer().count());
+    }
+}
@@ -0,0 +1,174 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.entity.CardOutboxEvent;
+import com.bank.app.cards_service.repo.CardOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CardOutboxRelayTest {
+
+    @Mock
+    private CardOutboxRepository cardOutboxRepository;
+
+    @Mock
+    private CardEventSender cardEventSender;
+
+    @Mock
+    private JobLeaseManager jobLeaseManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CardOutboxRelay cardOutboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        cardOutboxRelay = new CardOutboxRelay(meterRegistry);
+        ReflectionTestUtils.setField(cardOutboxRelay, "cardOutboxRepository", cardOutboxRepository);
+        ReflectionTestUtils.setField(cardOutboxRelay, "cardEventSender", cardEventSender);
+        ReflectionTestUtils.setField(cardOutboxRelay, "jobLeaseManager", jobLeaseManager);
+        ReflectionTestUtils.setField(cardOutboxRelay, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(cardOutboxRelay, "batchSize", 2);
+        ReflectionTestUtils.setField(cardOutboxRelay, "sendTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(cardOutboxRelay, "leaseTtlMs", 1000L);
+        ReflectionTestUtils.setField(cardOutboxRelay, "maxAttempts", 3);
+    }
+
+    private CardOutboxEvent event(long id, String eventType) {
+        return event(id, id, eventType);
+    }
+
+    private CardOutboxEvent event(long id, long cardId, String eventType) {
+        return CardOutboxEvent.builder()
+                .id(id)
+                .cardId(cardId)
+                .eventType(eventType)
+                .payload("{\"cardNumber\":\"4000000000000002\"}")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    void testRelayDeletesOnlyAcknowledgedEvents() throws InterruptedException {
+        when(jobLeaseManager.tryAcquire(eq("card-outbox-relay"), any())).thenReturn(true);
+        when(cardOutboxRepository.findByParkedAtIsNullOrderByIdAsc(any()))
+                .thenReturn(List.of(event(1L, "Card Issued"), event(2L, "Card Blocked")));
+        when(cardEventSender.send(eq("Card Issued"), anyLong(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(cardEventSender.send(eq("Card Blocked"), anyLong(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker unavailable")));
+
+        cardOutboxRelay.relay();
+
+        verify(cardOutboxRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(cardOutboxRepository, times(1)).findByParkedAtIsNullOrderByIdAsc(any());
+        assertEquals(1.0, meterRegistry.get("cards.outbox.relayed").counter().count());
+        assertEquals(1.0, meterRegistry.get("cards.outbox.failed").counter().count());
+    }
+
+    @Test
+    void testRelayHoldsBackOnlyTheFailedCardsLaterEvents() throws InterruptedException {
+        ReflectionTestUtils.setField(cardOutboxRelay, "batchSize", 3);
+        when(jobLeaseManager.tryAcquire(anyString(), any())).thenReturn(true);
+        when(cardOutboxRepository.findByParkedAtIsNullOrderByIdAsc(any()))
+                .thenReturn(List.of(event(1L, 5L, "Card Blocked"), event(2L, 5L, "Card Issued"),
+                        event(3L, 6L, "Card Issued")));
+        when(cardEventSender.send(eq("Card Blocked"), anyLong(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker unavailable")));
+        when(cardEventSender.send(eq("Card Issued"), anyLong(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        cardOutboxRelay.relay();
+
+        verify(cardOutboxRepository).deleteAllByIdInBatch(List.of(3L));
+        verify(cardOutboxRepository, never()).recordFailedAttempt(any());
+        assertEquals(2.0, meterRegistry.get("cards.outbox.failed").counter().count());
+    }
+
+    @Test
+    void testUnreadablePayloadIsParkedAfterMaxAttempts() {
+        when(jobLeaseManager.tryAcquire(anyString(), any())).thenReturn(true);
+        CardOutboxEvent retried = event(1L, "Card Issued");
+        retried.setPayload("not json");
+        CardOutboxEvent exhausted = event(2L, "Card Issued");
+        exhausted.setPayload("not json");
+        exhausted.setAttempts(2);
+        when(cardOutboxRepository.findByParkedAtIsNullOrderByIdAsc(any())).thenReturn(List.of(retried, exhausted));
+
+        cardOutboxRelay.relay();
+
+        verify(cardOutboxRepository).recordFailedAttempt(List.of(1L));
+        verify(cardOutboxRepository).park(eq(List.of(2L)), any());
+        verify(cardOutboxRepository, never()).deleteAllByIdInBatch(any());
+        verifyNoInteractions(cardEventSender);
+        assertEquals(1.0, meterRegistry.get("cards.outbox.parked").counter().count());
+    }
+
+    @Test
+    void testLeaseLostWhileWaitingDeletesNothing() throws InterruptedException {
+        ReflectionTestUtils.setField(cardOutboxRelay, "leaseTtlMs", 30L);
+        when(jobLeaseManager.tryAcquire(anyString(), any())).thenReturn(true, false);
+        when(cardOutboxRepository.findByParkedAtIsNullOrderByIdAsc(any()))
+                .thenReturn(List.of(event(1L, "Card Issued"), event(2L, "Card Issued")));
+        when(cardEventSender.send(anyString(), eq(1L), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(cardEventSender.send(anyString(), eq(2L), any())).thenReturn(new CompletableFuture<>());
+
+        cardOutboxRelay.relay();
+
+        verify(cardOutboxRepository, never()).deleteAllByIdInBatch(any());
+        assertEquals(0.0, meterRegistry.get("cards.outbox.relayed").counter().count());
+    }
+
+    @Test
+    void testRelayStopsDrainingWhenLeaseIsLost() throws InterruptedException {
+        when(jobLeaseManager.tryAcquire(anyString(), any())).thenReturn(true, false);
+        when(cardOutboxRepository.findByParkedAtIsNullOrderByIdAsc(any()))
+                .thenReturn(List.of(event(1L, "Card Issued"), event(2L, "Card Issued")));
+        when(cardEventSender.send(anyString(), anyLong(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        cardOutboxRelay.relay();
+
+        verify(cardOutboxRepository, times(1)).findByParkedAtIsNullOrderByIdAsc(any());
+        verify(cardOutboxRepository, never()).deleteAllByIdInBatch(any());
+        verify(jobLeaseManager, times(2)).tryAcquire(eq("card-outbox-relay"), any());
+    }
+
+    @Test
+    void testRelayKeepsDrainingFullBatches() throws InterruptedException {
+        when(jobLeaseManager.tryAcquire(anyString(), any())).thenReturn(true);
+        when(cardOutboxRepository.findByParkedAtIsNullOrderByIdAsc(any()))
+                .thenReturn(List.of(event(1L, "Card Issued"), event(2L, "Card Issued")))
+                .thenReturn(Collections.emptyList());
+        when(cardEventSender.send(anyString(), anyLong(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        cardOutboxRelay.relay();
+
+        verify(cardOutboxRepository, times(2)).findByParkedAtIsNullOrderByIdAsc(any());
+        verify(cardOutboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        assertEquals(0.0, meterRegistry.get("cards.outbox.lag").gauge().value());
+    }
+
+    @Test
+    void testRelaySkippedWithoutLease() {
+        when(jobLeaseManager.tryAcquire(anyString(), any())).thenReturn(false);
+
+        cardOutboxRelay.relay();
+
+        verifyNoInteractions(cardOutboxRepository, cardEventSender);
+    }
+}
@@ -1,5 +1,10 @@
 package com.bank.app.cards_service.service;
+import com.bank.app.cards_service.dto.BulkTransitionResult;
+import com.bank.app.cards_service.dto.CardPage;
 import com.bank.app.cards_service.entity.Card;
+import com.bank.app.cards_service.entity.CardTransition;
+import com.bank.app.cards_service.exception.CardNotFoundException;
+import com.bank.app.cards_service.exception.CardStatusConflictException;
 
 import com.bank.app.cards_service.repo.CardsRepository;
 
@@ -11,12 +16,22 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class CardServiceImplTest {
@@ -27,6 +42,18 @@ class CardServiceImplTest {
     @Mock
     private CardEventPublisher cardEventPublisher;
 
+    @Mock
+    private CardNumberGenerator cardNumberGenerator;
+
+    @Mock
+    private CardCache cardCache;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Spy
+    private ReadYourWrites readYourWrites = new ReadYourWrites(false, 5000, 100);
+
     @InjectMocks
     private CardServiceImpl cardService;
 
@@ -34,6 +61,8 @@ class CardServiceImplTest {
     void setUp() {
         System.out.println("CardServiceImplTest.setUp");
         MockitoAnnotations.openMocks(this);
+        when(cardCache.get(anyLong(), any())).thenAnswer(invocation ->
+                invocation.<Function<Long, Card>>getArgument(1).apply(invocation.getArgument(0)));
     }
 
     @Test
@@ -43,170 +72,208 @@ class CardServiceImplTest {
         card.setCardType(CardType.CREDIT);
 
         when(cardRepository.save(any(Card.class))).thenReturn(card);
+        when(cardNumberGenerator.generate(CardType.CREDIT)).thenReturn("4000001234567899");
 
         Card result = cardService.requestNewCard(card);
 
         assertNotNull(result);
         assertEquals(CardStatus.PENDING_ACTIVATION, result.getStatus());
+        assertEquals("4000001234567899", result.getCardNumber());
         verify(cardRepository, times(1)).save(any(Card.class));
         verify(cardEventPublisher, times(1)).sendIssueCardMessage(any(Card.class));
     }
 
     @Test
-    void testActivateCard() {
+    void testRequestNewCardIgnoresClientIdAndVersion() {
+        Card card = Card.builder().id(42L).version(7L).userId(1L).cardType(CardType.DEBIT).build();
+
+        when(cardRepository.save(any(Card.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(cardNumberGenerator.generate(CardType.DEBIT)).thenReturn("4100001234567891");
+
+        cardService.requestNewCard(card);
+
+        verify(cardRepository).save(argThat(saved -> saved.getId() == null && saved.getVersion() == null));
+    }
+
+    @Test
+    void testRequestNewCardSkipsExistingCardNumbers() {
+        ReflectionTestUtils.setField(cardService, "checkExistingNumbers", true);
         Card card = new Card();
-        card.setId(1L);
-        card.setStatus(CardStatus.PENDING_ACTIVATION);
+        card.setUserId(1L);
+        card.setCardType(CardType.DEBIT);
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
         when(cardRepository.save(any(Card.class))).thenReturn(card);
+        when(cardNumberGenerator.generate(CardType.DEBIT)).thenReturn("4100001234567891", "4100009876543213");
+        when(cardRepository.findExistingCardNumbers(List.of("4100001234567891"))).thenReturn(List.of("4100001234567891"));
+
+        Card result = cardService.requestNewCard(card);
+
+        assertEquals("4100009876543213", result.getCardNumber());
+        verify(cardRepository, times(2)).findExistingCardNumbers(any());
+    }
+
+    private Card cardWithStatus(CardStatus status) {
+        Card card = new Card();
+        card.setId(1L);
+        card.setStatus(status);
+        card.setVersion(3L);
+        return card;
+    }
+
+    @Test
+    void testActivateCard() {
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(cardWithStatus(CardStatus.PENDING_ACTIVATION)));
+        when(cardRepository.transition(1L, 3L, CardTransition.ACTIVATE.getAllowedFrom(), CardStatus.ACTIVE)).thenReturn(1);
 
         Card result = cardService.activateCard(1L);
 
         assertNotNull(result);
         assertEquals(CardStatus.ACTIVE, result.getStatus());
+        assertEquals(4L, result.getVersion());
         verify(cardRepository, times(1)).findById(1L);
-        verify(cardRepository, times(1)).save(any(Card.class));
+        verify(cardRepository, never()).save(any(Card.class));
         verify(cardEventPublisher, times(1)).sendCardActivateMessage(any(Card.class));
     }
 
     @Test
     void testActivateCardThrowsException() {
-        Card card = new Card();
-        card.setId(1L);
-        card.setStatus(CardStatus.ACTIVE);
-
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(cardWithStatus(CardStatus.ACTIVE)));
 
-        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
+        CardStatusConflictException exception = assertThrows(CardStatusConflictException.class, () -> {
             cardService.activateCard(1L);
         });
 
         assertEquals("Card is not in a pending activation state", exception.getMessage());
-        verify(cardRepository, times(1)).findById(1L);
-        verify(cardRepository, never()).save(any(Card.class));
+        verify(cardRepository, never()).transition(any(), any(), any(), any());
         verify(cardEventPublisher, never()).sendCardActivateMessage(any(Card.class));
     }
 
     @Test
-    void testRequestBlockCard() {
-        Card card = new Card();
-        card.setId(1L);
-        card.setStatus(CardStatus.ACTIVE);
+    void testActivateCardNotFound() {
+        when(cardRepository.findById(1L)).thenReturn(Optional.empty());
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
-        when(cardRepository.save(any(Card.class))).thenReturn(card);
+        assertThrows(CardNotFoundException.class, () -> cardService.activateCard(1L));
+        verify(cardRepository, never()).transition(any(), any(), any(), any());
+    }
+
+    @Test
+    void testTransitionRetriesWithCurrentVersionWhenCacheIsStale() {
+        Card stale = cardWithStatus(CardStatus.ACTIVE);
+        Card current = cardWithStatus(CardStatus.PENDING_BLOCK);
+        current.setVersion(4L);
+        doReturn(stale).when(cardCache).get(eq(1L), any());
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(current));
+        when(cardRepository.transition(1L, 4L, CardTransition.BLOCK.getAllowedFrom(), CardStatus.BLOCKED)).thenReturn(1);
+
+        Card result = cardService.blockCard(1L);
+
+        assertEquals(CardStatus.BLOCKED, result.getStatus());
+        assertEquals(5L, result.getVersion());
+        verify(cardRepository, times(1)).transition(1L, 3L, CardTransition.BLOCK.getAllowedFrom(), CardStatus.BLOCKED);
+        verify(applicationEventPublisher, times(1)).publishEvent(new CardChangedEvent(result, CardStatus.PENDING_BLOCK));
+    }
+
+    @Test
+    void testConcurrentTransitionIsReportedAsConflict() {
+        doReturn(cardWithStatus(CardStatus.BLOCKED)).when(cardCache).get(eq(1L), any());
+        Card unblocked = cardWithStatus(CardStatus.ACTIVE);
+        unblocked.setVersion(4L);
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(unblocked));
+
+        assertThrows(CardStatusConflictException.class, () -> cardService.unblockCard(1L));
+        verify(cardRepository, times(1)).transition(any(), any(), any(), any());
+        verify(cardEventPublisher, never()).sendCardUnblockMessage(any(Card.class));
+    }
+
+    @Test
+    void testRequestBlockCard() {
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(cardWithStatus(CardStatus.ACTIVE)));
+        when(cardRepository.transition(1L, 3L, CardTransition.REQUEST_BLOCK.getAllowedFrom(), CardStatus.PENDING_BLOCK))
+                .thenReturn(1);
 
         Card result = cardService.requestBlockCard(1L);
 
         assertNotNull(result);
         assertEquals(CardStatus.PENDING_BLOCK, result.getStatus());
         verify(cardRepository, times(1)).findById(1L);
-        verify(cardRepository, times(1)).save(any(Card.class));
+        verifyNoInteractions(cardEventPublisher);
     }
 
     @Test
     void testRequestBlockCardThrowsException() {
-        Card card = new Card();
-        card.setId(1L);
-        card.setStatus(CardStatus.BLOCKED);
-
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(cardWithStatus(CardStatus.BLOCKED)));
 
         IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
             cardService.requestBlockCard(1L);
         });
 
         assertEquals("Card is not eligible for blocking in its current status.", exception.getMessage());
-        verify(cardRepository, times(1)).findById(1L);
-        verify(cardRepository, never()).save(any(Card.class));
+        verify(cardRepository, never()).transition(any(), any(), any(), any());
     }
 
     @Test
     void testRequestUnblockCard() {
-        Card card = new Card();
-        card.setId(1L);
-        card.setStatus(CardStatus.BLOCKED);
-
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
-        when(cardRepository.save(any(Card.class))).thenReturn(card);
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(cardWithStatus(CardStatus.BLOCKED)));
+        when(cardRepository.transition(1L, 3L, CardTransition.REQUEST_UNBLOCK.getAllowedFrom(), CardStatus.PENDING_UNBLOCK))
+                .thenReturn(1);
 
         Card result = cardService.requestUnblockCard(1L);
 
         assertNotNull(result);
         assertEquals(CardStatus.PENDING_UNBLOCK, result.getStatus());
         verify(cardRepository, times(1)).findById(1L);
-        verify(cardRepository, times(1)).save(any(Card.class));
     }
 
     @Test
     void testRequestUnblockCardThrowsException() {
-        Card card = new Card();
-        card.setId(1L);
-        card.setStatus(CardStatus.ACTIVE);
-
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(cardWithStatus(CardStatus.ACTIVE)));
 
         IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
             cardService.requestUnblockCard(1L);
         });
 
         assertEquals("Card is not eligible for unblocking in its current status.", exception.getMessage());
-        verify(cardRepository, times(1)).findById(1L);
-        verify(cardRepository, never()).save(any(Card.class));
+        verify(cardRepository, never()).transition(any(), any(), any(), any());
     }
 
     @Test
     void testBlockCard() {
-        Card card = new Card();
-        card.setId(1L);
-        card.setStatus(CardStatus.ACTIVE);
-
+        Card card = cardWithStatus(CardStatus.ACTIVE);
         when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
-        when(cardRepository.save(any(Card.class))).thenReturn(card);
+        when(cardRepository.transition(1L, 3L, CardTransition.BLOCK.getAllowedFrom(), CardStatus.BLOCKED)).thenReturn(1);
 
         Card result = cardService.blockCard(1L);
 
         assertNotNull(result);
         assertEquals(CardStatus.BLOCKED, result.getStatus());
         verify(cardRepository, times(1)).findById(1L);
-        verify(cardRepository, times(1)).save(any(Card.class));
         verify(cardEventPublisher, times(1)).sendCardBlockMessage(any(Card.class));
+        verify(applicationEventPublisher, times(1)).publishEvent(new CardChangedEvent(result, CardStatus.ACTIVE));
     }
 
     @Test
     void testUnblockCard() {
-        Card card = new Card();
-        card.setId(1L);
-        card.setStatus(CardStatus.BLOCKED);
-
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
-        when(cardRepository.save(any(Card.class))).thenReturn(card);
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(cardWithStatus(CardStatus.BLOCKED)));
+        when(cardRepository.transition(1L, 3L, CardTransition.UNBLOCK.getAllowedFrom(), CardStatus.ACTIVE)).thenReturn(1);
 
         Card result = cardService.unblockCard(1L);
 
         assertNotNull(result);
         assertEquals(CardStatus.ACTIVE, result.getStatus());
         verify(cardRepository, times(1)).findById(1L);
-        verify(cardRepository, times(1)).save(any(Card.class));
         verify(cardEventPublisher, times(1)).sendCardUnblockMessage(any(Card.class));
     }
 
     @Test
     void testCancelCard() {
-        Card card = new Card();
-        card.setId(1L);
-        card.setStatus(CardStatus.ACTIVE);
-
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
-        when(cardRepository.save(any(Card.class))).thenReturn(card);
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(cardWithStatus(CardStatus.ACTIVE)));
+        when(cardRepository.transition(1L, 3L, CardTransition.CANCEL.getAllowedFrom(), CardStatus.CANCELLED)).thenReturn(1);
 
         Card result = cardService.cancelCard(1L);
 
         assertNotNull(result);
         assertEquals(CardStatus.CANCELLED, result.getStatus());
         verify(cardRepository, times(1)).findById(1L);
-        verify(cardRepository, times(1)).save(any(Card.class));
         verify(cardEventPublisher, times(1)).sendCardBlockMessage(any(Card.class));
     }
 
@@ -222,6 +289,7 @@ class CardServiceImplTest {
         assertNotNull(result);
         assertEquals(1L, result.getId());
         verify(cardRepository, times(1)).findById(1L);
+        verify(cardCache, times(1)).get(eq(1L), any());
     }
 
     @Test
@@ -235,5 +303,74 @@ class CardServiceImplTest {
         assertEquals("Card not found", exception.getMessage());
         verify(cardRepository, times(1)).findById(1L);
     }
-}
 
+    @Test
+    void testGetNonActiveCardsPage() {
+        Card first = Card.builder().id(4L).status(CardStatus.BLOCKED).build();
+        Card second = Card.builder().id(9L).status(CardStatus.EXPIRED).build();
+
+        when(cardRepository.findPageByStatusIn(any(), eq(3L), any())).thenReturn(List.of(first, second));
+
+        CardPage page = cardService.getNonActiveCardsPage(null, 3L, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(9L, page.getNextCursor());
+        verify(cardRepository, times(1)).findPageByStatusIn(
+                argThat(statuses -> !statuses.contains(CardStatus.ACTIVE) && statuses.contains(CardStatus.BLOCKED)),
+                eq(3L), eq(PageRequest.ofSize(2)));
+    }
+
+    @Test
+    void testGetNonActiveCardsLastPage() {
+        when(cardRepository.findPageByStatusIn(eq(Set.of(CardStatus.BLOCKED)), eq(0L), any()))
+                .thenReturn(List.of(Card.builder().id(4L).status(CardStatus.BLOCKED).build()));
+
+        CardPage page = cardService.getNonActiveCardsPage(Set.of(CardStatus.BLOCKED), null, 2);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetNonActiveCardsPageRejectsActiveStatus() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            cardService.getNonActiveCardsPage(Set.of(CardStatus.ACTIVE), null, 10);
+        });
+
+        assertEquals("Status filter may only contain non-active statuses", exception.getMessage());
+        verify(cardRepository, never()).findPageByStatusIn(any(), any(), any());
+    }
+
+    @Test
+    void testBulkTransition() {
+        Card active = Card.builder().id(1L).status(CardStatus.ACTIVE).version(0L).build();
+        Card cancelled = Card.builder().id(2L).status(CardStatus.CANCELLED).build();
+        ReflectionTestUtils.setField(cardService, "bulkMaxIds", 100);
+
+        when(cardRepository.findAllByIdForUpdate(List.of(1L, 2L, 3L))).thenReturn(List.of(active, cancelled));
+
+        List<BulkTransitionResult> results = cardService.bulkTransition(CardTransition.BLOCK, List.of(1L, 2L, 3L, 1L));
+
+        assertEquals(3, results.size());
+        assertEquals(BulkTransitionResult.Outcome.CHANGED, results.get(0).getOutcome());
+        assertEquals(CardStatus.BLOCKED, results.get(0).getStatus());
+        assertEquals(BulkTransitionResult.Outcome.SKIPPED_STATUS, results.get(1).getOutcome());
+        assertEquals(CardStatus.CANCELLED, results.get(1).getStatus());
+        assertEquals(BulkTransitionResult.Outcome.NOT_FOUND, results.get(2).getOutcome());
+        verify(cardRepository, times(1)).updateStatusIn(List.of(1L), CardTransition.BLOCK.getAllowedFrom(), CardStatus.BLOCKED);
+        verify(cardEventPublisher, times(1)).sendCardBlockMessages(List.of(active));
+        verify(cardEventPublisher, never()).sendCardBlockMessage(any(Card.class));
+        verify(applicationEventPublisher, times(1)).publishEvent(new CardChangedEvent(active, CardStatus.ACTIVE));
+    }
+
+    @Test
+    void testBulkTransitionRejectsTooManyIds() {
+        ReflectionTestUtils.setField(cardService, "bulkMaxIds", 1);
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            cardService.bulkTransition(CardTransition.CANCEL, List.of(1L, 2L));
+        });
+
+        verify(cardRepository, never()).findAllByIdForUpdate(any());
+    }
+}
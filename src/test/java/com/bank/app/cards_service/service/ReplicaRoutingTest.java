@@ -0,0 +1,112 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.config.DataSourceRoutingConfig;
+import com.bank.app.cards_service.entity.Card;
+import com.bank.core.entity.CardStatus;
+import com.bank.core.entity.CardType;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the service against a primary and a replica database that are not replicated, so each
+ * read shows which of them served it.
+ */
+@SpringBootTest
+@ActiveProfiles("replicas")
+class ReplicaRoutingTest {
+    private static final String REPLICA_URL =
+            "jdbc:h2:mem:cards-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private CardsService cardsService;
+
+    @Autowired
+    private DataSourceRoutingConfig dataSourceRoutingConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+        replica.execute("create table if not exists replica_lag (lag_ms bigint)");
+    }
+
+    @BeforeEach
+    void setUp() {
+        setReplicaLag(0);
+    }
+
+    private void setReplicaLag(long lagMs) {
+        replica.update("delete from replica_lag");
+        replica.update("insert into replica_lag (lag_ms) values (?)", lagMs);
+        dataSourceRoutingConfig.checkReplicas();
+    }
+
+    private long insertOnReplicaOnly(long userId) {
+        replica.update("insert into cards (card_number, card_type, user_id, status) values (?, ?, ?, ?)",
+                "400000" + userId, CardType.DEBIT.name(), userId, CardStatus.BLOCKED.name());
+        return replica.queryForObject("select id from cards where user_id = ?", Long.class, userId);
+    }
+
+    private double routed(String target, String reason) {
+        var counter = meterRegistry.find("cards.datasource.routing").tags("target", target, "reason", reason).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @Test
+    void testReadOnlyQueriesUseReplica() {
+        long cardId = insertOnReplicaOnly(9001L);
+        double before = routed("replica-1", "read");
+
+        Card card = cardsService.getCardById(cardId);
+
+        assertEquals(9001L, card.getUserId());
+        assertEquals(1, cardsService.getCardsByUserId(9001L).size());
+        assertTrue(routed("replica-1", "read") > before);
+    }
+
+    @Test
+    void testRecentlyWrittenCardsAreReadFromPrimary() {
+        Card card = new Card();
+        card.setUserId(9002L);
+        card.setCardType(CardType.DEBIT);
+        Long cardId = cardsService.requestNewCard(card).getId();
+        double before = routed("primary", "read_your_writes");
+
+        assertEquals(CardStatus.PENDING_ACTIVATION, cardsService.getCardById(cardId).getStatus());
+        List<Card> cards = cardsService.getCardsByUserId(9002L);
+
+        assertEquals(List.of(cardId), cards.stream().map(Card::getId).toList());
+        assertEquals(before + 2, routed("primary", "read_your_writes"));
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        insertOnReplicaOnly(9003L);
+        setReplicaLag(5000);
+        double before = routed("primary", "replica_unavailable");
+
+        assertTrue(cardsService.getCardsByUserId(9003L).isEmpty());
+        assertEquals(0, meterRegistry.get("cards.datasource.replica.available").tag("replica", "replica-1")
+                .gauge().value());
+        assertTrue(routed("primary", "replica_unavailable") > before);
+
+        setReplicaLag(0);
+        assertEquals(1, meterRegistry.get("cards.datasource.replica.available").tag("replica", "replica-1")
+                .gauge().value());
+    }
+}
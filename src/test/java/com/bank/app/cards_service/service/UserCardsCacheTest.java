@@ -0,0 +1,76 @@
+package com.bank.app.cards_service.service;
+
+import com.bank.app.cards_service.entity.Card;
+import com.bank.core.entity.CardStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCardsCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final UserCardsCache userCardsCache = new UserCardsCache(meterRegistry, 100, 60000);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private List<Card> load(Long userId) {
+        loads.incrementAndGet();
+        return List.of(Card.builder().id(1L).userId(userId).status(CardStatus.ACTIVE).build());
+    }
+
+    @Test
+    void testChangesAreAppliedToCachedList() {
+        userCardsCache.get(7L, this::load);
+
+        userCardsCache.apply(Card.builder().id(1L).userId(7L).status(CardStatus.BLOCKED).build());
+        userCardsCache.apply(Card.builder().id(2L).userId(7L).status(CardStatus.PENDING_ACTIVATION).build());
+        List<Card> cards = userCardsCache.get(7L, this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals(2, cards.size());
+        assertEquals(CardStatus.BLOCKED, cards.get(0).getStatus());
+        assertEquals(CardStatus.PENDING_ACTIVATION, cards.get(1).getStatus());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "cards.by-user").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testChangesForUncachedUsersAreIgnored() {
+        userCardsCache.apply(Card.builder().id(1L).userId(7L).status(CardStatus.BLOCKED).build());
+
+        List<Card> cards = userCardsCache.get(7L, this::load);
+
+        assertEquals(CardStatus.ACTIVE, cards.get(0).getStatus());
+    }
+
+    @Test
+    void testEvictForcesReload() {
+        userCardsCache.get(7L, this::load);
+        userCardsCache.evict(7L);
+        userCardsCache.get(7L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testVersionFollowsAppliedChanges() {
+        userCardsCache.get(7L, id -> List.of(Card.builder().id(1L).userId(id).version(2L).build()));
+        assertEquals(3L, UserCardsCache.versionOf(userCardsCache.get(7L, this::load)));
+
+        userCardsCache.apply(Card.builder().id(1L).userId(7L).version(3L).build());
+        assertEquals(4L, UserCardsCache.versionOf(userCardsCache.get(7L, this::load)));
+
+        userCardsCache.apply(Card.builder().id(2L).userId(7L).version(0L).build());
+        assertEquals(5L, UserCardsCache.versionOf(userCardsCache.get(7L, this::load)));
+
+        // A change that arrives after a newer one must not roll the card back.
+        userCardsCache.apply(Card.builder().id(1L).userId(7L).version(2L).build());
+        assertEquals(5L, UserCardsCache.versionOf(userCardsCache.get(7L, this::load)));
+        assertEquals(0, loads.get());
+    }
+}